@@ -0,0 +1,60 @@
+package com.arextest.schedule.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * The benchmarked components are spring beans with field injection, wire them by hand here.
+ */
+final class BenchmarkSupport {
+
+  private BenchmarkSupport() {
+  }
+
+  static void inject(Object target, String fieldName, Object value) {
+    try {
+      Field field = findField(target.getClass(), fieldName);
+      field.setAccessible(true);
+      field.set(target, value);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("inject field failed: " + fieldName, e);
+    }
+  }
+
+  static void invoke(Object target, String methodName) {
+    try {
+      Method method = target.getClass().getDeclaredMethod(methodName);
+      method.setAccessible(true);
+      method.invoke(target);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("invoke method failed: " + methodName, e);
+    }
+  }
+
+  private static Field findField(Class<?> clazz, String fieldName) throws NoSuchFieldException {
+    for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+      try {
+        return current.getDeclaredField(fieldName);
+      } catch (NoSuchFieldException ignored) {
+        // look up the super class
+      }
+    }
+    throw new NoSuchFieldException(fieldName);
+  }
+
+  /**
+   * a json body of roughly the size of a typical recorded servlet request
+   */
+  static String sampleJson(int fields) {
+    StringBuilder sb = new StringBuilder(fields * 32);
+    sb.append('{');
+    for (int i = 0; i < fields; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append("\"field").append(i).append("\":\"value-").append(i).append("-abcdefgh\"");
+    }
+    sb.append('}');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,51 @@
+package com.arextest.schedule.benchmark;
+
+import com.arextest.schedule.utils.DecodeUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * base64 detection of request bodies, both for base64 and plain json input
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecodeUtilsBenchmark {
+
+  @Param({"16", "256"})
+  private int fields;
+
+  private String json;
+  private String base64;
+
+  @Setup
+  public void setup() {
+    json = BenchmarkSupport.sampleJson(fields);
+    base64 = Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Benchmark
+  public Object decodeBase64() {
+    return DecodeUtils.decode(base64);
+  }
+
+  @Benchmark
+  public Object decodePlainJson() {
+    return DecodeUtils.decode(json);
+  }
+}
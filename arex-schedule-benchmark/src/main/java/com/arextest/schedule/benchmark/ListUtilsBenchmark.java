@@ -0,0 +1,49 @@
+package com.arextest.schedule.benchmark;
+
+import com.arextest.diff.model.log.NodeEntity;
+import com.arextest.schedule.utils.ListUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * fuzzy path of a diff node, computed for every diff of every compared case
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListUtilsBenchmark {
+
+  @Param({"4", "16"})
+  private int depth;
+
+  private List<NodeEntity> path;
+
+  @Setup
+  public void setup() {
+    path = new ArrayList<>(depth);
+    for (int i = 0; i < depth; i++) {
+      // every third node is an array index
+      path.add(i % 3 == 2 ? new NodeEntity(null, i) : new NodeEntity("node" + i, 0));
+    }
+  }
+
+  @Benchmark
+  public String fuzzyPathWithBase64() {
+    return ListUtils.getFuzzyPathStrWithBase64(path);
+  }
+}
@@ -0,0 +1,75 @@
+package com.arextest.schedule.benchmark;
+
+import com.arextest.extension.desensitization.DefaultDataDesensitization;
+import com.arextest.model.mock.Mocker.Target;
+import com.arextest.schedule.model.ReplayActionCaseItem;
+import com.arextest.schedule.model.converter.ReplayRunDetailsConverter;
+import com.arextest.schedule.model.converter.ReplayRunDetailsConverterImpl;
+import com.arextest.schedule.model.dao.mongodb.ReplayRunDetailsCollection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * case item encode (compress + encrypt the target request) and decode, done for every saved and
+ * every loaded case
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReplayRunDetailsConverterBenchmark {
+
+  @Param({"16", "256"})
+  private int fields;
+
+  private ReplayRunDetailsConverter converter;
+  private ReplayActionCaseItem caseItem;
+  private ReplayRunDetailsCollection collection;
+
+  @Setup
+  public void setup() {
+    converter = new ReplayRunDetailsConverterImpl();
+    BenchmarkSupport.inject(converter, "dataDesensitizationService",
+        new DefaultDataDesensitization());
+
+    Target target = new Target();
+    target.setBody(BenchmarkSupport.sampleJson(fields));
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("RequestPath", "/api/benchmark");
+    attributes.put("HttpMethod", "POST");
+    target.setAttributes(attributes);
+
+    caseItem = new ReplayActionCaseItem();
+    caseItem.setPlanId("benchmark-plan");
+    caseItem.setPlanItemId("benchmark-plan-item");
+    caseItem.setRecordId("benchmark-record");
+    caseItem.setCaseType("Servlet");
+    caseItem.setRecordTime(System.currentTimeMillis());
+    caseItem.setTargetRequest(target);
+    collection = converter.daoFromDto(caseItem);
+  }
+
+  @Benchmark
+  public ReplayRunDetailsCollection encode() {
+    return converter.daoFromDto(caseItem);
+  }
+
+  @Benchmark
+  public ReplayActionCaseItem decode() {
+    return converter.dtoFromDao(collection);
+  }
+}
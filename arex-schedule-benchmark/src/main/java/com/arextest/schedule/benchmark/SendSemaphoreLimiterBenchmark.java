@@ -0,0 +1,83 @@
+package com.arextest.schedule.benchmark;
+
+import com.arextest.schedule.common.SendSemaphoreLimiter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * release of the plan limiter under contention of the send threads: the health statistic of the
+ * stepped limiter and the AIMD window of the adaptive one. acquire is left out, it is paced by the
+ * RateLimiter and would measure the configured rate instead of the limiter. The limiters are
+ * created again for each iteration, so the iterations do not inherit the rate of the previous one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SendSemaphoreLimiterBenchmark {
+
+  private static final int MAX_QPS = 1_000;
+  private static final long LATENCY_MILLIS = 20;
+
+  private SendSemaphoreLimiter steppedLimiter;
+  private SendSemaphoreLimiter adaptiveLimiter;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    steppedLimiter = new SendSemaphoreLimiter(MAX_QPS, 1);
+    steppedLimiter.setTotalTasks(Integer.MAX_VALUE);
+    adaptiveLimiter = new SendSemaphoreLimiter(MAX_QPS, 1, true);
+    adaptiveLimiter.setTotalTasks(Integer.MAX_VALUE);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void releaseSingle() {
+    steppedLimiter.release(true);
+  }
+
+  @Benchmark
+  @Threads(16)
+  public void releaseContended() {
+    steppedLimiter.release(true);
+  }
+
+  @Benchmark
+  @Threads(16)
+  public void releaseWithErrorsContended() {
+    // one failure every few calls keeps the fail counters busy
+    steppedLimiter.release((System.nanoTime() & 7) != 0);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void adaptiveReleaseSingle() {
+    adaptiveLimiter.release(true, LATENCY_MILLIS);
+  }
+
+  @Benchmark
+  @Threads(16)
+  public void adaptiveReleaseContended() {
+    adaptiveLimiter.release(true, LATENCY_MILLIS);
+  }
+
+  @Benchmark
+  @Threads(16)
+  public void adaptiveReleaseWithErrorsContended() {
+    // failures close windows with a decrease, so the rate moves both ways
+    adaptiveLimiter.release((System.nanoTime() & 7) != 0, LATENCY_MILLIS);
+  }
+}
@@ -0,0 +1,68 @@
+package com.arextest.schedule.benchmark;
+
+import com.arextest.schedule.serialization.ZstdJacksonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * zstd + jackson round trips as used for storage responses
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ZstdJacksonSerializerBenchmark {
+
+  @Param({"16", "256"})
+  private int fields;
+
+  private ZstdJacksonSerializer serializer;
+  private Map<String, String> value;
+  private byte[] serialized;
+
+  @Setup
+  public void setup() {
+    serializer = new ZstdJacksonSerializer();
+    BenchmarkSupport.inject(serializer, "objectMapper", new ObjectMapper());
+    BenchmarkSupport.invoke(serializer, "initSerializationProvider");
+
+    value = new LinkedHashMap<>();
+    for (int i = 0; i < fields; i++) {
+      value.put("field" + i, "value-" + i + "-abcdefgh");
+    }
+    serialized = serialize();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    serializer.serializeTo(value, outputStream);
+    return outputStream.toByteArray();
+  }
+
+  @Benchmark
+  public Object deserialize() {
+    return serializer.deserialize(serialized, Map.class);
+  }
+
+  @Benchmark
+  public Object roundTrip() {
+    return serializer.deserialize(serialize(), Map.class);
+  }
+}
@@ -1,6 +1,7 @@
 package com.arextest.schedule.extension.invoker;
 
 import com.arextest.schedule.extension.model.ReplayInvokeResult;
+import java.util.concurrent.CompletableFuture;
 
 public interface ReplayExtensionInvoker {
 
@@ -11,6 +12,21 @@ public interface ReplayExtensionInvoker {
 
   ReplayInvokeResult invoke(ReplayInvocation invocation);
 
+  /**
+   * true if {@link #invokeAsync(ReplayInvocation)} returns without waiting for the remote call.
+   */
+  default boolean isAsyncSupported() {
+    return false;
+  }
+
+  /**
+   * Invoke without holding the calling thread, the future completes with the same result
+   * {@link #invoke(ReplayInvocation)} would return. The default implementation is blocking.
+   */
+  default CompletableFuture<ReplayInvokeResult> invokeAsync(ReplayInvocation invocation) {
+    return CompletableFuture.completedFuture(invoke(invocation));
+  }
+
   default int order() {
     return 1;
   }
@@ -1,6 +1,7 @@
 package com.arextest.schedule.beans;
 
 import com.google.common.eventbus.AsyncEventBus;
+import com.google.common.eventbus.EventBus;
 import java.util.concurrent.ExecutorService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,4 +18,13 @@ public class EventBusConfiguration {
     return new AsyncEventBus("replay-event-bus", autoRerunExecutorService);
   }
 
+  /**
+   * Delivers saved compare results to the diff detail precompute. Subscribers are called on the
+   * posting thread and only hand the work to their own executor.
+   */
+  @Bean
+  public EventBus compareResultEventBus() {
+    return new EventBus("compare-result-event-bus");
+  }
+
 }
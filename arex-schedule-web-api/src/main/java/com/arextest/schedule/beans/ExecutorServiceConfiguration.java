@@ -2,10 +2,13 @@ package com.arextest.schedule.beans;
 
 import com.alibaba.ttl.threadpool.TtlExecutors;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.lang.reflect.Method;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
@@ -34,13 +37,32 @@ class ExecutorServiceConfiguration implements Thread.UncaughtExceptionHandler {
   private static final int NOISE_ANALYSIS_QUEUE_MAX_CAPACITY_SIZE = 100;
   private static final int AUTO_RERUN_QUEUE_MAX_CAPACITY_SIZE = 100;
   private static final int POST_SEND_QUEUE_MAX_CAPACITY_SIZE = 100;
+  private static final int MOCK_CACHE_QUEUE_MAX_CAPACITY_SIZE = 2000;
+  private static final int DIFF_DETAIL_QUEUE_MAX_CAPACITY_SIZE = 2000;
 
 
   @Value("${arex.schedule.pool.io.cpuratio}")
   private int cpuRatio;
 
+  /**
+   * run the send, compare and preload work on virtual threads (JDK 21+). Send concurrency is then
+   * bounded by the send limiter, compare and preload by explicit permits. On older runtimes the
+   * bounded pools below are used as before.
+   */
+  @Value("${arex.schedule.pool.virtual.enable:false}")
+  private boolean virtualThreadEnable;
+  @Value("${arex.schedule.pool.virtual.comparePermits:0}")
+  private int comparePermits;
+  @Value("${arex.schedule.pool.virtual.preloadPermits:0}")
+  private int preloadPermits;
+
   @Bean
   public ExecutorService preloadExecutorService() {
+    ExecutorService virtualExecutor = newVirtualThreadExecutor("replay-preload-%d");
+    if (virtualExecutor != null) {
+      return TtlExecutors.getTtlExecutorService(new PermitBoundedExecutorService(virtualExecutor,
+          preloadPermits > 0 ? preloadPermits : MAXIMUM_POOL_SIZE));
+    }
     ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("replay-preload-%d")
         .setDaemon(true)
         .setUncaughtExceptionHandler(this).build();
@@ -57,6 +79,10 @@ class ExecutorServiceConfiguration implements Thread.UncaughtExceptionHandler {
    */
   @Bean
   public ExecutorService sendExecutorService() {
+    ExecutorService virtualExecutor = newVirtualThreadExecutor("replay-send-%d");
+    if (virtualExecutor != null) {
+      return TtlExecutors.getTtlExecutorService(virtualExecutor);
+    }
     ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("replay-send-%d")
         .setDaemon(true)
         .setUncaughtExceptionHandler(this).build();
@@ -68,8 +94,34 @@ class ExecutorServiceConfiguration implements Thread.UncaughtExceptionHandler {
     return TtlExecutors.getTtlExecutorService(executorService);
   }
 
+  /**
+   * Runs the completion of async sends: the send result write, the compare hand-off and the
+   * limiter release. It is handed tasks by the http client's I/O threads, so it never runs a task
+   * on the caller. The queue is unbounded, its length is bounded by the send in-flight window.
+   */
+  @Bean
+  public ExecutorService sendCompletionExecutorService() {
+    ExecutorService virtualExecutor = newVirtualThreadExecutor("replay-send-completion-%d");
+    if (virtualExecutor != null) {
+      return TtlExecutors.getTtlExecutorService(virtualExecutor);
+    }
+    ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(
+            "replay-send-completion-%d")
+        .setDaemon(true)
+        .setUncaughtExceptionHandler(this).build();
+    ExecutorService executorService = new ThreadPoolExecutor(calculateIOPoolSize(),
+        calculateIOPoolSize(), KEEP_ALIVE_TIME,
+        TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    return TtlExecutors.getTtlExecutorService(executorService);
+  }
+
   @Bean
   public ExecutorService compareExecutorService() {
+    ExecutorService virtualExecutor = newVirtualThreadExecutor("replay-compare-%d");
+    if (virtualExecutor != null) {
+      return TtlExecutors.getTtlExecutorService(new PermitBoundedExecutorService(virtualExecutor,
+          comparePermits > 0 ? comparePermits : CORE_POOL_SIZE));
+    }
     ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("replay-compare-%d")
         .setDaemon(true)
         .setUncaughtExceptionHandler(this).build();
@@ -92,6 +144,72 @@ class ExecutorServiceConfiguration implements Thread.UncaughtExceptionHandler {
     return TtlExecutors.getTtlScheduledExecutorService(executorService);
   }
 
+  /**
+   * Loads cases of several actions and prefetches their next pages. Tasks are never queued, a
+   * loader waiting for its prefetched page can not starve the prefetch itself.
+   */
+  @Bean
+  public ExecutorService caseLoadExecutorService() {
+    ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("replay-case-load-%d")
+        .setDaemon(true)
+        .setUncaughtExceptionHandler(this).build();
+    ExecutorService executorService = new ThreadPoolExecutor(0, MAXIMUM_POOL_SIZE,
+        KEEP_ALIVE_TIME, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory,
+        new ThreadPoolExecutor.CallerRunsPolicy());
+    return TtlExecutors.getTtlExecutorService(executorService);
+  }
+
+  /**
+   * Computes diff details of written compare results in the background, kept small so it does not
+   * compete with the compare itself. Rejected results are computed when they are first read.
+   */
+  @Bean
+  public ExecutorService diffDetailExecutorService() {
+    ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("diff-detail-%d")
+        .setDaemon(true)
+        .setUncaughtExceptionHandler(this).build();
+    int poolSize = Math.max(1, CPU_INTENSIVE_CORE_POOL_SIZE / 2);
+    ExecutorService executorService = new ThreadPoolExecutor(poolSize, poolSize,
+        KEEP_ALIVE_TIME,
+        TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(DIFF_DETAIL_QUEUE_MAX_CAPACITY_SIZE), threadFactory,
+        new ThreadPoolExecutor.AbortPolicy());
+    return TtlExecutors.getTtlExecutorService(executorService);
+  }
+
+  /**
+   * Fetches and decodes compare sources. Like the case loading, tasks are never queued: a fetch
+   * waiting for the decode of its own result runs the decode itself when the pool is busy.
+   */
+  @Bean
+  public ExecutorService compareSourceLoadExecutorService() {
+    ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(
+            "replay-compare-source-%d")
+        .setDaemon(true)
+        .setUncaughtExceptionHandler(this).build();
+    ExecutorService executorService = new ThreadPoolExecutor(0, MAXIMUM_POOL_SIZE,
+        KEEP_ALIVE_TIME, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory,
+        new ThreadPoolExecutor.CallerRunsPolicy());
+    return TtlExecutors.getTtlExecutorService(executorService);
+  }
+
+  /**
+   * Loads mock caches ahead of the send cursor. A rejected prefetch is not an error, the case
+   * loads its cache itself right before being sent.
+   */
+  @Bean
+  public ExecutorService mockCachePreloadExecutorService() {
+    ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(
+            "replay-mock-cache-%d")
+        .setDaemon(true).setUncaughtExceptionHandler(this).build();
+    ExecutorService executorService = new ThreadPoolExecutor(CORE_POOL_SIZE, CORE_POOL_SIZE,
+        KEEP_ALIVE_TIME,
+        TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(MOCK_CACHE_QUEUE_MAX_CAPACITY_SIZE), threadFactory,
+        new ThreadPoolExecutor.AbortPolicy());
+    return TtlExecutors.getTtlExecutorService(executorService);
+  }
+
   @Bean
   public ExecutorService rerunPrepareExecutorService() {
     ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(
@@ -163,6 +281,30 @@ class ExecutorServiceConfiguration implements Thread.UncaughtExceptionHandler {
     LOGGER.error("uncaughtException {} ,error :{}", t.getName(), e.getMessage(), e);
   }
 
+  /**
+   * the project targets java 8, so the virtual thread executor is looked up reflectively
+   *
+   * @return null if virtual threads are disabled or not supported, the caller keeps its bounded
+   * pool
+   */
+  private ExecutorService newVirtualThreadExecutor(String nameFormat) {
+    if (!virtualThreadEnable) {
+      return null;
+    }
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      ExecutorService executorService = (ExecutorService) method.invoke(null);
+      LOGGER.info("use virtual thread executor for {}", nameFormat);
+      return executorService;
+    } catch (NoSuchMethodException e) {
+      LOGGER.warn("virtual thread is not supported, use bounded thread pool for {}", nameFormat);
+    } catch (Exception e) {
+      LOGGER.error("create virtual thread executor error, use bounded thread pool for {}",
+          nameFormat, e);
+    }
+    return null;
+  }
+
   private int calculateIOPoolSize() {
     int nThreads = Runtime.getRuntime().availableProcessors();
     double targetCPUUtilization = 0.8;
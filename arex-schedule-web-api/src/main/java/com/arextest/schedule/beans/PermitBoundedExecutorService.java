@@ -0,0 +1,65 @@
+package com.arextest.schedule.beans;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of tasks running at once on a virtual thread executor. The permit is taken inside
+ * the task, a waiting task only parks its own virtual thread. Not meant for platform threads, every
+ * waiting task would hold one.
+ */
+final class PermitBoundedExecutorService extends AbstractExecutorService {
+
+  private final ExecutorService delegate;
+  private final Semaphore permits;
+
+  PermitBoundedExecutorService(ExecutorService delegate, int maxConcurrency) {
+    this.delegate = delegate;
+    this.permits = new Semaphore(maxConcurrency);
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    delegate.execute(() -> {
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      try {
+        command.run();
+      } finally {
+        permits.release();
+      }
+    });
+  }
+
+  @Override
+  public void shutdown() {
+    delegate.shutdown();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    return delegate.shutdownNow();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return delegate.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return delegate.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return delegate.awaitTermination(timeout, unit);
+  }
+}
@@ -2,6 +2,8 @@ package com.arextest.schedule.client;
 
 import static com.arextest.schedule.common.CommonConstant.URL;
 
+import com.arextest.schedule.model.LogType;
+import com.arextest.schedule.service.MetricService;
 import com.arextest.schedule.utils.SSLUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Maps;
@@ -12,10 +14,25 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
+import javax.net.ssl.SSLContext;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
@@ -25,7 +42,7 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.ResourceHttpMessageConverter;
@@ -71,6 +88,25 @@ public final class HttpWepServiceApiClient {
   private int backOffPeriod;
   @Value("${arex.client.https.cert.disable:#{false}}")
   private boolean disableCertCheck;
+  @Value("${arex.client.pool.maxTotal:512}")
+  private int poolMaxTotal;
+  @Value("${arex.client.pool.maxPerRoute:128}")
+  private int poolMaxPerRoute;
+  @Value("${arex.client.pool.idleEvictSeconds:30}")
+  private int poolIdleEvictSeconds;
+  @Value("${arex.client.pool.keepAliveSeconds:60}")
+  private int poolKeepAliveSeconds;
+  @Value("${arex.client.pool.validateAfterInactivityMillis:2000}")
+  private int poolValidateAfterInactivity;
+  @Value("${arex.client.pool.metricSeconds:30}")
+  private int poolMetricSeconds;
+  @Resource
+  private MetricService metricService;
+  @Resource
+  private ScheduledExecutorService monitorScheduler;
+
+  private PoolingHttpClientConnectionManager connectionManager;
+  private CloseableHttpClient httpClient;
 
   @Autowired(required = false)
   private List<ClientHttpRequestInterceptor> clientHttpRequestInterceptors;
@@ -84,9 +120,23 @@ public final class HttpWepServiceApiClient {
     }
   }
 
+  @PreDestroy
+  private void destroy() {
+    try {
+      if (httpClient != null) {
+        httpClient.close();
+      }
+    } catch (Exception e) {
+      LOGGER.warn("close pooled http client error: {}", e.getMessage());
+    }
+  }
+
   private void initRestTemplate() {
-    SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+    initHttpClient();
+    HttpComponentsClientHttpRequestFactory requestFactory =
+        new HttpComponentsClientHttpRequestFactory(httpClient);
     requestFactory.setConnectTimeout(connectTimeOut);
+    requestFactory.setConnectionRequestTimeout(connectTimeOut);
     requestFactory.setReadTimeout(readTimeOut);
     final int initialCapacity = 10;
     List<HttpMessageConverter<?>> httpMessageConverterList = new ArrayList<>(initialCapacity);
@@ -108,6 +158,62 @@ public final class HttpWepServiceApiClient {
     }
   }
 
+  /**
+   * keep-alive connections are shared across replay sending and storage/report calls, so the pool
+   * is bounded per route to avoid one slow host draining all connections.
+   */
+  private void initHttpClient() {
+    RegistryBuilder<ConnectionSocketFactory> registryBuilder =
+        RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory());
+    SSLContext sslContext = disableCertCheck ? SSLUtils.trustAllSSLContext() : null;
+    if (sslContext != null) {
+      registryBuilder.register("https",
+          new SSLConnectionSocketFactory(sslContext, NoopHostnameVerifier.INSTANCE));
+    } else {
+      registryBuilder.register("https", SSLConnectionSocketFactory.getSocketFactory());
+    }
+    Registry<ConnectionSocketFactory> registry = registryBuilder.build();
+
+    connectionManager = new PoolingHttpClientConnectionManager(registry);
+    connectionManager.setMaxTotal(poolMaxTotal);
+    connectionManager.setDefaultMaxPerRoute(poolMaxPerRoute);
+    connectionManager.setValidateAfterInactivity(poolValidateAfterInactivity);
+
+    final long keepAliveMillis = TimeUnit.SECONDS.toMillis(poolKeepAliveSeconds);
+    httpClient = HttpClientBuilder.create()
+        .setConnectionManager(connectionManager)
+        .setKeepAliveStrategy((response, context) -> {
+          long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+              .getKeepAliveDuration(response, context);
+          return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis)
+              : keepAliveMillis;
+        })
+        .evictExpiredConnections()
+        .evictIdleConnections(poolIdleEvictSeconds, TimeUnit.SECONDS)
+        .disableCookieManagement()
+        .build();
+
+    if (poolMetricSeconds > 0) {
+      monitorScheduler.scheduleAtFixedRate(this::reportPoolStats, poolMetricSeconds,
+          poolMetricSeconds, TimeUnit.SECONDS);
+    }
+  }
+
+  private void reportPoolStats() {
+    try {
+      PoolStats stats = connectionManager.getTotalStats();
+      metricService.recordCountEvent(LogType.HTTP_POOL_LEASED.getValue(), null, null,
+          stats.getLeased());
+      metricService.recordCountEvent(LogType.HTTP_POOL_PENDING.getValue(), null, null,
+          stats.getPending());
+      metricService.recordCountEvent(LogType.HTTP_POOL_AVAILABLE.getValue(), null, null,
+          stats.getAvailable());
+    } catch (Exception e) {
+      LOGGER.warn("report http pool stats error: {}", e.getMessage());
+    }
+  }
+
   private void initRetryTemplate() {
     retryTemplate = new RetryTemplate();
 
@@ -0,0 +1,140 @@
+package com.arextest.schedule.common;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Additive increase / multiplicative decrease of the send rate.
+ * <p>
+ * Results are collected into a window of WINDOW_SIZE calls (or WINDOW_MAX_NANOS), when the window
+ * is full one releasing thread wins the adjusting flag and evaluates it, the others keep counting
+ * without waiting. A window with too many failures, or with an average latency well above the
+ * observed baseline, halves the rate; a healthy window adds a small fixed step up to the max.
+ * <p>
+ * All state lives in atomics, no sender thread ever blocks on a monitor here. The new rate is
+ * handed to the listener while the flag is still held, so rate changes are applied in order.
+ *
+ * @see SendSemaphoreLimiter
+ */
+final class AimdRateController {
+
+  static final int WINDOW_SIZE = 20;
+  static final long WINDOW_MAX_NANOS = 1_000_000_000L;
+  static final double DECREASE_FACTOR = 0.5;
+  static final double INCREASE_RATIO_OF_MAX = 0.05;
+  static final double FAIL_RATIO_TOLERANCE = 0.05;
+  static final double LATENCY_TOLERANCE = 2.0;
+  // weight of the newest window when the baseline latency drifts upwards
+  private static final double BASELINE_DRIFT = 0.05;
+  private static final int MIN_RATE = 1;
+
+  private final int maxRate;
+  private final double increaseStep;
+  private final IntConsumer rateListener;
+
+  private final AtomicLong rateBits;
+  private final AtomicInteger windowSuccess = new AtomicInteger();
+  private final AtomicInteger windowFail = new AtomicInteger();
+  private final AtomicInteger windowLatencyCount = new AtomicInteger();
+  private final AtomicLong windowLatencySum = new AtomicLong();
+  private final AtomicLong windowStartNanos = new AtomicLong(System.nanoTime());
+  private final AtomicLong baselineLatencyBits = new AtomicLong(Double.doubleToLongBits(0));
+  private final AtomicBoolean adjusting = new AtomicBoolean();
+
+  AimdRateController(int initialRate, int maxRate, IntConsumer rateListener) {
+    this.maxRate = Math.max(maxRate, MIN_RATE);
+    this.rateListener = rateListener;
+    this.increaseStep = Math.max(1, this.maxRate * INCREASE_RATIO_OF_MAX);
+    this.rateBits = new AtomicLong(Double.doubleToLongBits(
+        Math.min(Math.max(initialRate, MIN_RATE), this.maxRate)));
+  }
+
+  int currentRate() {
+    return (int) Math.floor(Double.longBitsToDouble(rateBits.get()));
+  }
+
+  /**
+   * @param latencyMillis negative if unknown
+   */
+  void onResult(boolean success, long latencyMillis) {
+    if (success) {
+      windowSuccess.incrementAndGet();
+    } else {
+      windowFail.incrementAndGet();
+    }
+    if (latencyMillis >= 0) {
+      windowLatencySum.addAndGet(latencyMillis);
+      windowLatencyCount.incrementAndGet();
+    }
+    tryAdjust();
+  }
+
+  void onBatchResult(boolean success, int size) {
+    if (success) {
+      windowSuccess.addAndGet(size);
+    } else {
+      windowFail.addAndGet(size);
+    }
+  }
+
+  void reset(int initialRate) {
+    rateBits.set(Double.doubleToLongBits(Math.min(Math.max(initialRate, MIN_RATE), maxRate)));
+    baselineLatencyBits.set(Double.doubleToLongBits(0));
+    resetWindow();
+  }
+
+  private void tryAdjust() {
+    int success = windowSuccess.get();
+    int fail = windowFail.get();
+    int total = success + fail;
+    boolean windowFull = total >= WINDOW_SIZE
+        || (total > 0 && System.nanoTime() - windowStartNanos.get() > WINDOW_MAX_NANOS);
+    if (!windowFull || !adjusting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      // take the counters under the flag, results counted meanwhile go to the next window
+      windowStartNanos.set(System.nanoTime());
+      success = windowSuccess.getAndSet(0);
+      fail = windowFail.getAndSet(0);
+      total = success + fail;
+      int latencyCount = windowLatencyCount.getAndSet(0);
+      long latencySum = windowLatencySum.getAndSet(0);
+      double avgLatency = latencyCount == 0 ? -1 : (double) latencySum / latencyCount;
+      if (total == 0) {
+        return;
+      }
+
+      double baseline = Double.longBitsToDouble(baselineLatencyBits.get());
+      boolean overloaded = (double) fail / total > FAIL_RATIO_TOLERANCE
+          || (avgLatency >= 0 && baseline > 0 && avgLatency > baseline * LATENCY_TOLERANCE);
+      if (avgLatency >= 0) {
+        double newBaseline = baseline <= 0 || avgLatency < baseline ? avgLatency
+            : baseline * (1 - BASELINE_DRIFT) + avgLatency * BASELINE_DRIFT;
+        baselineLatencyBits.set(Double.doubleToLongBits(newBaseline));
+      }
+
+      double rate = Double.longBitsToDouble(rateBits.get());
+      double newRate = overloaded ? Math.max(MIN_RATE, rate * DECREASE_FACTOR)
+          : Math.min(maxRate, rate + increaseStep);
+      rateBits.set(Double.doubleToLongBits(newRate));
+      int before = (int) Math.floor(rate);
+      int after = (int) Math.floor(newRate);
+      if (before != after) {
+        rateListener.accept(after);
+      }
+    } finally {
+      adjusting.set(false);
+    }
+  }
+
+  private void resetWindow() {
+    windowSuccess.set(0);
+    windowFail.set(0);
+    windowLatencySum.set(0);
+    windowLatencyCount.set(0);
+    windowStartNanos.set(System.nanoTime());
+  }
+}
@@ -26,6 +26,7 @@ public final class CommonConstant {
   // region redis
   public static final String COMPARE_CONFIG_REDIS_KEY = "compare.config.";
   public static final String COMPARE_GLOBAL_CONFIG_REDIS_KEY = "compare.config.global";
+  public static final String COMPARE_CONFIG_VERSION_REDIS_KEY = "compare.config.version.";
 
   public static final long CREATE_PLAN_REDIS_EXPIRE = TimeUnit.MINUTES.toSeconds(5);
   public static final long STOP_PLAN_REDIS_EXPIRE = TimeUnit.DAYS.toSeconds(1);
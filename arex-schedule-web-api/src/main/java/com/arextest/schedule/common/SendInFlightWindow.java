@@ -0,0 +1,69 @@
+package com.arextest.schedule.common;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the cases submitted for sending but not finished yet. Pages of cases flow into the window
+ * without waiting for the previous page, a new case only waits when the window is full, and the
+ * window is only drained when the execution context ends.
+ */
+public final class SendInFlightWindow {
+
+  private final Object lock = new Object();
+  private int inFlight;
+  /**
+   * no bound if not positive
+   */
+  private volatile int maxInFlight;
+
+  public void setMaxInFlight(int maxInFlight) {
+    synchronized (lock) {
+      this.maxInFlight = maxInFlight;
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * take a slot of the window, wait until one is free if the window is full
+   */
+  public void enter() throws InterruptedException {
+    synchronized (lock) {
+      while (maxInFlight > 0 && inFlight >= maxInFlight) {
+        lock.wait();
+      }
+      inFlight++;
+    }
+  }
+
+  public void exit() {
+    synchronized (lock) {
+      if (inFlight > 0) {
+        inFlight--;
+      }
+      lock.notifyAll();
+    }
+  }
+
+  public int inFlight() {
+    synchronized (lock) {
+      return inFlight;
+    }
+  }
+
+  /**
+   * @return true if all cases in the window finished before the timeout
+   */
+  public boolean awaitEmpty(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (lock) {
+      while (inFlight > 0) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+      }
+      return true;
+    }
+  }
+}
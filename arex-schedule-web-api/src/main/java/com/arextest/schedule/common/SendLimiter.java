@@ -12,6 +12,13 @@ public interface SendLimiter {
 
   void release(boolean success);
 
+  /**
+   * @param latencyMillis time spent on the send, negative if unknown
+   */
+  default void release(boolean success, long latencyMillis) {
+    release(success);
+  }
+
   void batchRelease(boolean success, int size);
 
   int totalError();
@@ -2,7 +2,6 @@ package com.arextest.schedule.common;
 
 import com.arextest.common.cache.CacheProvider;
 import com.arextest.schedule.model.ReplayPlan;
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +9,10 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * @author wildeslam.
  * @create 2023/12/1 15:38
+ * <p>
+ * With permitsPerSecond set, the limiter also caps the sends of all nodes for the plan: a node
+ * leases a batch of permits from the counter of the current second with one INCRBY and hands them
+ * out locally, the release results are written back in batches as well.
  */
 @Slf4j
 public class SendRedisLimiter implements SendLimiter {
@@ -21,18 +24,60 @@ public class SendRedisLimiter implements SendLimiter {
   private static final String REPLAY_PLAN_KEY_FORMAT = "replayPlan_%s_%s";
   private static final String CONTINUOUS_FAIL_COUNTER = "continuousFailCounter";
   private static final String FAIL_COUNTER = "failCounter";
+  private static final String PERMIT_BUCKET = "permits_";
   private static final long ONE_HOUR_SECONDS = TimeUnit.HOURS.toSeconds(1);
+  private static final long PERMIT_BUCKET_EXPIRE_SECONDS = 2;
+  private static final int MAX_LEASE_SIZE = 10;
+  private static final int LEASES_PER_SECOND = 4;
+  private static final long FLUSH_INTERVAL_MILLIS = 1000;
+  private static final byte[] ZERO = String.valueOf(0).getBytes(StandardCharsets.UTF_8);
 
-  private final ReplayPlan replayPlan;
+  /**
+   * a cached limiter outlives the plan it was built for, a rerun updates the case total count
+   */
+  private volatile ReplayPlan replayPlan;
   private final CacheProvider redisCacheProvider;
+  /**
+   * the permits of all nodes in one second, the leased mode is off when it is not positive
+   */
+  private final int permitsPerSecond;
+  private final int leaseSize;
+
+  private final Object leaseLock = new Object();
+  private long leaseSecond = -1;
+  private int leasedPermits;
+  private boolean bucketExhausted;
+
+  private final Object releaseLock = new Object();
+  private int pendingReleases;
+  private int pendingFails;
+  /**
+   * a success came after the last pending failure, so the continuous counter should be reset
+   */
+  private boolean pendingSuccess;
+  private long lastFlushMillis = System.currentTimeMillis();
 
   public SendRedisLimiter(ReplayPlan replayPlan, CacheProvider redisCacheProvider) {
+    this(replayPlan, redisCacheProvider, 0);
+  }
+
+  public SendRedisLimiter(ReplayPlan replayPlan, CacheProvider redisCacheProvider,
+      int permitsPerSecond) {
     this.replayPlan = replayPlan;
     this.redisCacheProvider = redisCacheProvider;
+    this.permitsPerSecond = permitsPerSecond;
+    this.leaseSize = Math.max(1, Math.min(MAX_LEASE_SIZE, permitsPerSecond / LEASES_PER_SECOND));
+  }
+
+  public void setReplayPlan(ReplayPlan replayPlan) {
+    this.replayPlan = replayPlan;
   }
 
   @Override
   public boolean failBreak() {
+    if (permitsPerSecond > 0) {
+      flushReleases(false);
+    }
     int totalTasks = replayPlan.getCaseTotalCount();
     int continuousFailCounter = continuousError();
     int failCounter = totalError();
@@ -40,13 +85,77 @@ public class SendRedisLimiter implements SendLimiter {
         || (totalTasks > 0 && ((double) failCounter / totalTasks) > ERROR_BREAK_RATE);
   }
 
+  /**
+   * Blocks until a permit of the current second is leased, the buckets follow the wall clock of
+   * the nodes.
+   */
   @Override
   public void acquire() {
+    if (permitsPerSecond <= 0) {
+      return;
+    }
+    while (true) {
+      long waitMillis;
+      synchronized (leaseLock) {
+        long now = System.currentTimeMillis();
+        long second = TimeUnit.MILLISECONDS.toSeconds(now);
+        if (second != leaseSecond) {
+          leaseSecond = second;
+          leasedPermits = 0;
+          bucketExhausted = false;
+        }
+        if (leasedPermits == 0 && !bucketExhausted) {
+          leasedPermits = lease(second);
+          // a partial lease means the other nodes took the rest of this second
+          bucketExhausted = leasedPermits < leaseSize;
+        }
+        if (leasedPermits > 0) {
+          leasedPermits--;
+          return;
+        }
+        waitMillis = TimeUnit.SECONDS.toMillis(second + 1) - now;
+      }
+      try {
+        Thread.sleep(waitMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
 
+  private int lease(long second) {
+    byte[] bucketKey = buildReplayPlanKeyWithKeyword(replayPlan.getId(), PERMIT_BUCKET + second);
+    try {
+      // only sets the expiry, INCRBY alone would create the bucket without one
+      redisCacheProvider.putIfAbsent(bucketKey, PERMIT_BUCKET_EXPIRE_SECONDS, ZERO);
+      Long taken = redisCacheProvider.incrValueBy(bucketKey, leaseSize);
+      if (taken == null) {
+        return leaseSize;
+      }
+      long takenBefore = taken - leaseSize;
+      return (int) Math.max(0, Math.min(leaseSize, permitsPerSecond - takenBefore));
+    } catch (Throwable throwable) {
+      LOGGER.error("lease send permits error, plan id: {}", replayPlan.getId(), throwable);
+      return leaseSize;
+    }
   }
 
   @Override
   public void release(boolean success) {
+    if (permitsPerSecond > 0) {
+      synchronized (releaseLock) {
+        pendingReleases++;
+        if (success) {
+          pendingSuccess = true;
+        } else {
+          pendingFails++;
+          pendingSuccess = false;
+        }
+      }
+      flushReleases(true);
+      return;
+    }
     byte[] continuousFailCounterKey = buildReplayPlanKeyWithKeyword(replayPlan.getId(),
         CONTINUOUS_FAIL_COUNTER);
     if (success) {
@@ -62,6 +171,60 @@ public class SendRedisLimiter implements SendLimiter {
     redisCacheProvider.incrValue(buildReplayPlanKeyWithKeyword(replayPlan.getId(), FAIL_COUNTER));
   }
 
+  /**
+   * Writes the pending release results right away, called before the limiter is dropped.
+   */
+  public void flush() {
+    if (permitsPerSecond > 0) {
+      flushReleases(false);
+    }
+  }
+
+  /**
+   * Writes the pending release results with one INCRBY per counter.
+   *
+   * @param whenDue only flush once a lease worth of results or the flush interval has passed
+   */
+  private void flushReleases(boolean whenDue) {
+    int fails;
+    boolean resetContinuous;
+    synchronized (releaseLock) {
+      long now = System.currentTimeMillis();
+      if (pendingReleases == 0 || (whenDue && pendingReleases < leaseSize
+          && now - lastFlushMillis < FLUSH_INTERVAL_MILLIS)) {
+        return;
+      }
+      fails = pendingFails;
+      resetContinuous = pendingSuccess;
+      pendingReleases = 0;
+      pendingFails = 0;
+      pendingSuccess = false;
+      lastFlushMillis = now;
+    }
+    byte[] continuousFailCounterKey = buildReplayPlanKeyWithKeyword(replayPlan.getId(),
+        CONTINUOUS_FAIL_COUNTER);
+    try {
+      Long continuousFailCounter = null;
+      if (fails > 0) {
+        continuousFailCounter = redisCacheProvider.incrValueBy(continuousFailCounterKey, fails);
+        redisCacheProvider.incrValueBy(
+            buildReplayPlanKeyWithKeyword(replayPlan.getId(), FAIL_COUNTER), fails);
+      }
+      if (!resetContinuous) {
+        return;
+      }
+      if (continuousFailCounter == null) {
+        continuousFailCounter = (long) continuousError();
+      }
+      if (continuousFailCounter < CONTINUOUS_FAIL_TOTAL) {
+        // reset to zero else pin down
+        redisCacheProvider.put(continuousFailCounterKey, ONE_HOUR_SECONDS, ZERO);
+      }
+    } catch (Throwable throwable) {
+      LOGGER.error("flush send results error, plan id: {}", replayPlan.getId(), throwable);
+    }
+  }
+
   @Override
   public void batchRelease(boolean success, int size) {
 
@@ -91,11 +254,18 @@ public class SendRedisLimiter implements SendLimiter {
   }
 
 
+  /**
+   * The counters are written by INCR and PUT, both store the decimal string.
+   */
   private int byteArrayToInt(byte[] bytes) {
-    if (bytes == null || bytes.length != Integer.BYTES) {
+    if (bytes == null || bytes.length == 0) {
+      return 0;
+    }
+    try {
+      return Integer.parseInt(new String(bytes, StandardCharsets.UTF_8).trim());
+    } catch (NumberFormatException e) {
       return 0;
     }
-    return ByteBuffer.wrap(bytes).getInt();
   }
 
   private byte[] buildReplayPlanKeyWithKeyword(String planId, String keyword) {
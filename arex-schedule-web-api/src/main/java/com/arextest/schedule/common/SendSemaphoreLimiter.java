@@ -16,6 +16,10 @@ import lombok.extern.slf4j.Slf4j;
  * already lower or equal to the lowest step ratio
  * <p>
  * Consecutive 40 failed API call || 10% of total case failed -> break execution
+ * <p>
+ * When created as adaptive the steps above are replaced by {@link AimdRateController}: the rate is
+ * driven by the success ratio and latency of each window of results, and the sender threads never
+ * synchronize on the limiter to adjust it.
  *
  * @author hzmeng
  * @since 2021/11/09
@@ -43,10 +47,12 @@ public final class SendSemaphoreLimiter implements SendLimiter {
   @Setter
   private int continuousFailThreshold;
 
+  @Getter
   private final int sendMaxRate;
   private final int sendInitialRate;
   private final ReplayHealthy checker = new ReplayHealthy();
   private final RateLimiter rateLimiter;
+  private final AimdRateController aimd;
   @Setter
   private ReplayPlan replayPlan;
   @Getter
@@ -56,6 +62,11 @@ public final class SendSemaphoreLimiter implements SendLimiter {
   private int totalTasks;
 
   public SendSemaphoreLimiter(Integer maxQpsPerInstance, Integer instanceCount) {
+    this(maxQpsPerInstance, instanceCount, false);
+  }
+
+  public SendSemaphoreLimiter(Integer maxQpsPerInstance, Integer instanceCount,
+      boolean adaptive) {
     this.sendMaxRate =
         Optional.ofNullable(maxQpsPerInstance).filter(qps -> qps > 0).orElse(DEFAULT_MAX_RATE)
             * instanceCount;
@@ -67,6 +78,8 @@ public final class SendSemaphoreLimiter implements SendLimiter {
     this.permits = actualInitialMinQps;
     this.errorBreakRatio = DEFAULT_ERROR_BREAK_RATIO;
     this.continuousFailThreshold = DEFAULT_CONTINUOUS_FAIL_THRESHOLD;
+    this.aimd = adaptive ? new AimdRateController(actualInitialMinQps, sendMaxRate, this::applyRate)
+        : null;
   }
 
   @Override
@@ -76,17 +89,30 @@ public final class SendSemaphoreLimiter implements SendLimiter {
 
   @Override
   public void acquire() {
-    checker.tryChangeRate();
+    if (aimd == null) {
+      checker.tryChangeRate();
+    }
     rateLimiter.acquire();
   }
 
   @Override
   public void release(boolean success) {
+    release(success, -1);
+  }
+
+  @Override
+  public void release(boolean success, long latencyMillis) {
     checker.statistic(success);
+    if (aimd != null) {
+      aimd.onResult(success, latencyMillis);
+    }
   }
 
   @Override
   public void batchRelease(boolean success, int size) {
+    if (aimd != null) {
+      aimd.onBatchResult(success, size);
+    }
     if (success) {
       checker.batchSuccess(size);
     } else {
@@ -127,6 +153,13 @@ public final class SendSemaphoreLimiter implements SendLimiter {
     }
   }
 
+  private void applyRate(int newQps) {
+    int originalQps = this.permits;
+    this.permits = newQps;
+    this.rateLimiter.setRate(newQps);
+    LOGGER.info("send rate permits: {} -> {} (per second)", originalQps, newQps);
+  }
+
   private Integer getRatioOfStep(int step) {
     int rate = (int) Math.floor(sendMaxRate * QPS_STEP_RATIO[step]);
     if (rate == 0) {
@@ -151,6 +184,9 @@ public final class SendSemaphoreLimiter implements SendLimiter {
     this.rateLimiter.setRate(this.sendInitialRate);
     this.permits = this.sendInitialRate;
     this.currentStep = QPS_INITIAL_STEP;
+    if (this.aimd != null) {
+      this.aimd.reset(this.sendInitialRate);
+    }
     LOGGER.info("send rate reset to initial status, from {} to {}", this.permits,
         this.sendInitialRate);
   }
@@ -3,6 +3,7 @@ package com.arextest.schedule.comparer;
 import com.arextest.common.cache.CacheProvider;
 import com.arextest.schedule.client.HttpWepServiceApiClient;
 import com.arextest.schedule.common.JsonUtils;
+import com.arextest.schedule.model.LogType;
 import com.arextest.schedule.model.ReplayActionItem;
 import com.arextest.schedule.model.ReplayPlan;
 import com.arextest.schedule.model.config.ComparisonDependencyConfig;
@@ -10,16 +11,25 @@ import com.arextest.schedule.model.config.ComparisonInterfaceConfig;
 import com.arextest.schedule.model.config.ReplayComparisonConfig;
 import com.arextest.schedule.model.converter.ReplayConfigConverter;
 import com.arextest.schedule.progress.ProgressEvent;
+import com.arextest.schedule.service.MetricService;
 import com.arextest.schedule.utils.MapUtils;
 import com.arextest.web.model.contract.contracts.config.SystemConfigWithProperties;
 import com.arextest.web.model.contract.contracts.config.replay.ReplayCompareConfig;
 import com.arextest.web.model.contract.contracts.config.replay.ReplayCompareConfig.DependencyComparisonItem;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
@@ -50,10 +60,31 @@ public final class CompareConfigService {
   private String systemConfigUrl;
   @Resource
   private ProgressEvent progressEvent;
+  @Resource
+  private MetricService metricService;
+  @Resource
+  private ScheduledExecutorService monitorScheduler;
+  @Value("${arex.schedule.compareConfig.cache.maxSize:2000}")
+  private long localCacheMaxSize;
+  @Value("${arex.schedule.compareConfig.cache.expireSeconds:60}")
+  private long localCacheExpireSeconds;
+  @Value("${arex.schedule.compareConfig.cache.metricSeconds:60}")
+  private long localCacheMetricSeconds;
+
+  /**
+   * process-local copy of the interface config in redis, keyed by action item id and the version
+   * written by preload. The config is read by every compared case, each read only gets the short
+   * version from redis, and only the first read of a version pays for the config and its parsing.
+   * A preload on any node writes a new version, so the other nodes stop using their old copy.
+   */
+  private Cache<String, ComparisonInterfaceConfig> interfaceConfigCache;
+  private CacheStats lastReportedStats = new CacheStats(0, 0, 0, 0, 0, 0);
 
   private static final RetryTemplate RETRY_TEMPLATE = RetryTemplate.builder().maxAttempts(3)
       .fixedBackoff(200L)
       .build();
+  private static final long CONFIG_EXPIRE_SECONDS = 4 * 24 * 60 * 60L;
+  private static final String CONFIG_VERSION_SEPARATOR = "#";
   private static final long DEFAULT_COMPARE_IGNORE_TIME_PRECISION_MILLIS = 2000;
   private static final boolean DEFAULT_COMPARE_NAME_TO_LOWER = true;
   private static final boolean DEFAULT_COMPARE_NULL_EQUALS_EMPTY = true;
@@ -63,6 +94,19 @@ public final class CompareConfigService {
 
   private static SystemConfigWithProperties systemConfig = null;
 
+  @PostConstruct
+  private void initLocalCache() {
+    interfaceConfigCache = CacheBuilder.newBuilder()
+        .maximumSize(localCacheMaxSize)
+        .expireAfterWrite(localCacheExpireSeconds, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+    if (localCacheMetricSeconds > 0) {
+      monitorScheduler.scheduleAtFixedRate(this::reportLocalCacheStats, localCacheMetricSeconds,
+          localCacheMetricSeconds, TimeUnit.SECONDS);
+    }
+  }
+
   public SystemConfigWithProperties getComparisonSystemConfig() {
 
     if (systemConfig != null) {
@@ -109,6 +153,7 @@ public final class CompareConfigService {
       return;
     }
 
+    String version = String.valueOf(System.currentTimeMillis());
     for (ReplayActionItem actionItem : plan.getReplayActionItemList()) {
       if (actionItem.getReplayCaseCount() == 0) {
         continue;
@@ -123,12 +168,19 @@ public final class CompareConfigService {
       String configValue = JsonUtils.objectToJsonString(config);
       redisCacheProvider.put(ComparisonInterfaceConfig.dependencyKey(actionItem.getId())
               .getBytes(StandardCharsets.UTF_8),
-          4 * 24 * 60 * 60L,
+          CONFIG_EXPIRE_SECONDS,
           configValue.getBytes(StandardCharsets.UTF_8));
+      // written after the config, a node reading the new version also reads the new config
+      redisCacheProvider.put(ComparisonInterfaceConfig.versionKey(actionItem.getId())
+              .getBytes(StandardCharsets.UTF_8),
+          CONFIG_EXPIRE_SECONDS,
+          version.getBytes(StandardCharsets.UTF_8));
 
       LOGGER.info("prepare load compare config, action id:{}, config:{}", actionItem.getId(),
           configValue);
     }
+    // after the writes, a read in between would cache the old redis value again
+    invalidateInterfaceConfig(plan);
     progressEvent.onCompareConfigLoaded(plan);
   }
 
@@ -137,21 +189,84 @@ public final class CompareConfigService {
   }
 
   public ComparisonInterfaceConfig loadInterfaceConfig(String actionItemId) {
+    if (StringUtils.isEmpty(actionItemId)) {
+      return ComparisonInterfaceConfig.empty();
+    }
+    String cacheKey = actionItemId + CONFIG_VERSION_SEPARATOR + loadConfigVersion(actionItemId);
+    ComparisonInterfaceConfig cached = interfaceConfigCache.getIfPresent(cacheKey);
+    if (cached != null) {
+      return cached;
+    }
+    long start = System.currentTimeMillis();
+    ComparisonInterfaceConfig config = loadInterfaceConfigFromRedis(actionItemId);
+    metricService.recordTimeEvent(LogType.COMPARE_CONFIG_LOAD_TIME.getValue(), null, null,
+        actionItemId, System.currentTimeMillis() - start);
+    if (config != null) {
+      interfaceConfigCache.put(cacheKey, config);
+      return config;
+    }
+    return ComparisonInterfaceConfig.empty();
+  }
+
+  /**
+   * drop the local copies of the plan's action configs, the next read goes to redis again. The
+   * copies on other nodes are left behind by the new version that preload writes.
+   */
+  public void invalidateInterfaceConfig(ReplayPlan plan) {
+    if (plan == null || CollectionUtils.isEmpty(plan.getReplayActionItemList())) {
+      return;
+    }
+    Set<String> actionItemIds = plan.getReplayActionItemList().stream()
+        .map(actionItem -> actionItem.getId() + CONFIG_VERSION_SEPARATOR)
+        .collect(Collectors.toSet());
+    interfaceConfigCache.asMap().keySet().removeIf(cacheKey -> actionItemIds.contains(
+        cacheKey.substring(0, cacheKey.indexOf(CONFIG_VERSION_SEPARATOR) + 1)));
+  }
+
+  /**
+   * @return the version of the action config written by preload, empty if there is none or it
+   * failed to load. Configs written without a version are then only refreshed by the expiry.
+   */
+  private String loadConfigVersion(String actionItemId) {
+    try {
+      byte[] version = redisCacheProvider.get(
+          ComparisonInterfaceConfig.versionKey(actionItemId).getBytes(StandardCharsets.UTF_8));
+      return version == null ? StringUtils.EMPTY : new String(version, StandardCharsets.UTF_8);
+    } catch (Throwable throwable) {
+      LOGGER.error(throwable.getMessage(), throwable);
+    }
+    return StringUtils.EMPTY;
+  }
+
+  /**
+   * @return null if the config is absent or failed to load, the failure is not cached
+   */
+  private ComparisonInterfaceConfig loadInterfaceConfigFromRedis(String actionItemId) {
     try {
       String redisKey = ComparisonInterfaceConfig.dependencyKey(actionItemId);
       byte[] json = redisCacheProvider.get(redisKey.getBytes(StandardCharsets.UTF_8));
       if (json == null) {
-        return ComparisonInterfaceConfig.empty();
+        return null;
       }
-      ComparisonInterfaceConfig config = JsonUtils.byteToObject(json, ComparisonInterfaceConfig.class);
-      if (config == null) {
-        return ComparisonInterfaceConfig.empty();
-      }
-      return config;
+      return JsonUtils.byteToObject(json, ComparisonInterfaceConfig.class);
     } catch (Throwable throwable) {
       LOGGER.error(throwable.getMessage(), throwable);
     }
-    return ComparisonInterfaceConfig.empty();
+    return null;
+  }
+
+  private void reportLocalCacheStats() {
+    try {
+      CacheStats current = interfaceConfigCache.stats();
+      CacheStats delta = current.minus(lastReportedStats);
+      lastReportedStats = current;
+      metricService.recordCountEvent(LogType.COMPARE_CONFIG_CACHE_HIT.getValue(), null, null,
+          delta.hitCount());
+      metricService.recordCountEvent(LogType.COMPARE_CONFIG_CACHE_MISS.getValue(), null, null,
+          delta.missCount());
+    } catch (Exception e) {
+      LOGGER.warn("report compare config cache stats error: {}", e.getMessage());
+    }
   }
 
   private Map<String, ComparisonInterfaceConfig> getReplayComparisonConfig(
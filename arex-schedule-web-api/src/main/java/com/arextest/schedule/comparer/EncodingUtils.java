@@ -1,6 +1,8 @@
 package com.arextest.schedule.comparer;
 
+import com.arextest.schedule.utils.DecodeUtils;
 import java.util.Base64;
+import org.apache.commons.lang3.StringUtils;
 
 /**
  * Created by qzmo on 2023-11-27
@@ -9,6 +11,9 @@ import java.util.Base64;
  */
 public class EncodingUtils {
 
+  private static final char QUOTE = '"';
+  private static final char PADDING = '=';
+
   public static String tryBase64Decode(String encoded) {
     try {
       if (encoded == null) {
@@ -17,6 +22,10 @@ public class EncodingUtils {
       if (isJson(encoded)) {
         return encoded;
       }
+      // most plain text bails out on its first char, the decoder still validates the padding
+      if (!maybeBase64(encoded)) {
+        return encoded;
+      }
       String decoded = new String(Base64.getDecoder().decode(trimBase64Str(encoded)));
       if (isJson(decoded)) {
         return decoded;
@@ -27,6 +36,16 @@ public class EncodingUtils {
     }
   }
 
+  private static boolean maybeBase64(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c != QUOTE && c != PADDING && !DecodeUtils.isBase64Char(c)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private static boolean isJson(String value) {
     if (value.startsWith("{") && value.endsWith("}")) {
       return true;
@@ -36,6 +55,6 @@ public class EncodingUtils {
   }
 
   private static String trimBase64Str(String in) {
-    return in.replace("\"", "");
+    return StringUtils.remove(in, QUOTE);
   }
 }
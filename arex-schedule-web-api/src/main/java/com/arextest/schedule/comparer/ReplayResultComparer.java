@@ -12,6 +12,16 @@ public interface ReplayResultComparer {
 
   boolean compare(ReplayActionCaseItem caseItem, boolean useReplayId);
 
+  /**
+   * compare several cases, e.g. the ready cases of one action, each case is finished as by
+   * {@link #compare(ReplayActionCaseItem, boolean)}
+   */
+  default void compare(List<ReplayActionCaseItem> caseItems, boolean useReplayId) {
+    for (ReplayActionCaseItem caseItem : caseItems) {
+      compare(caseItem, useReplayId);
+    }
+  }
+
   /**
    * call by com.arextest.schedule.comparer.ReplayResultComparer#compare
    * (com.arextest.schedule.model.ReplayActionCaseItem,boolean) to do content compare,
@@ -2,6 +2,7 @@ package com.arextest.schedule.comparer.impl;
 
 import com.arextest.diff.model.CompareOptions;
 import com.arextest.diff.model.CompareResult;
+import com.arextest.diff.model.MsgInfo;
 import com.arextest.diff.model.enumeration.DiffResultCode;
 import com.arextest.diff.sdk.CompareSDK;
 import com.arextest.model.mock.MockCategoryType;
@@ -33,6 +34,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
@@ -45,6 +47,7 @@ import org.springframework.util.StopWatch;
 public class DefaultReplayResultComparer implements ReplayResultComparer {
 
   private static final long MAX_TIME = Long.MAX_VALUE;
+  private static final int NO_MSG_MISS = 0;
 
   private final CompareConfigService compareConfigService;
   private final PrepareCompareSourceRemoteLoader sourceRemoteLoader;
@@ -77,6 +80,36 @@ public class DefaultReplayResultComparer implements ReplayResultComparer {
 
   @Override
   public boolean compare(ReplayActionCaseItem caseItem, boolean useReplayId) {
+    return compare(caseItem, () -> sourceRemoteLoader.buildWaitCompareList(caseItem, useReplayId));
+  }
+
+  /**
+   * The compare sources of all cases are loaded first through the batch loader, then each case is
+   * compared and written as a single compare would.
+   */
+  @Override
+  public void compare(List<ReplayActionCaseItem> caseItems, boolean useReplayId) {
+    if (CollectionUtils.isEmpty(caseItems)) {
+      return;
+    }
+    Map<String, List<CategoryComparisonHolder>> waitCompareLists;
+    try {
+      waitCompareLists = sourceRemoteLoader.buildWaitCompareList(caseItems, useReplayId);
+    } catch (Throwable throwable) {
+      LOGGER.error("batch load compare source error: {}, size: {}", throwable.getMessage(),
+          caseItems.size(), throwable);
+      waitCompareLists = Collections.emptyMap();
+    }
+    for (ReplayActionCaseItem caseItem : caseItems) {
+      List<CategoryComparisonHolder> waitCompareList = waitCompareLists.get(caseItem.getId());
+      // not loaded by the batch, load it on its own
+      compare(caseItem, waitCompareList != null ? () -> waitCompareList
+          : () -> sourceRemoteLoader.buildWaitCompareList(caseItem, useReplayId));
+    }
+  }
+
+  private boolean compare(ReplayActionCaseItem caseItem,
+      Supplier<List<CategoryComparisonHolder>> waitCompareLoader) {
     StopWatch compareWatch = new StopWatch();
     compareWatch.start(LogType.COMPARE.getValue());
     String planId = caseItem.getParent().getPlanId();
@@ -84,8 +117,7 @@ public class DefaultReplayResultComparer implements ReplayResultComparer {
       MDCTracer.addPlanId(planId);
       MDCTracer.addPlanItemId(caseItem.getPlanItemId());
 
-      List<CategoryComparisonHolder> waitCompareMap =
-          sourceRemoteLoader.buildWaitCompareList(caseItem, useReplayId);
+      List<CategoryComparisonHolder> waitCompareMap = waitCompareLoader.get();
       if (CollectionUtils.isEmpty(waitCompareMap)) {
         caseItemRepository.updateCompareStatus(caseItem.getId(),
             CompareProcessStatusType.ERROR.getValue());
@@ -286,6 +318,9 @@ public class DefaultReplayResultComparer implements ReplayResultComparer {
       // to-do: 64base extract record and result
       String decodedRecord = EncodingUtils.tryBase64Decode(record);
       String decodedResult = EncodingUtils.tryBase64Decode(result);
+      if (isIdentical(decodedRecord, decodedResult) && !hasTransform(compareConfig)) {
+        return identicalResult(decodedRecord, decodedResult);
+      }
       if (compareMode == CompareModeType.FULL.getValue()) {
         return compareService.compare(decodedRecord, decodedResult, options);
       }
@@ -298,6 +333,37 @@ public class DefaultReplayResultComparer implements ReplayResultComparer {
     }
   }
 
+  /**
+   * Identical payloads can not have a difference whatever the compare options are, so they skip
+   * the sdk. equals rejects payloads of a different length at once and stops at the first
+   * differing character otherwise.
+   */
+  private static boolean isIdentical(String record, String result) {
+    return StringUtils.isNotEmpty(record) && record.equals(result);
+  }
+
+  /**
+   * A transform rewrites the payloads before they are compared, the processed messages of the
+   * sdk differ from the raw ones and only the sdk can produce them.
+   */
+  private static boolean hasTransform(ReplayComparisonConfig compareConfig) {
+    return compareConfig != null && CollectionUtils.isNotEmpty(compareConfig.getTransformDetails());
+  }
+
+  /**
+   * The result of the sdk for two identical payloads, neither message is missing.
+   */
+  private static CompareResult identicalResult(String record, String result) {
+    CompareResult comparedResult = new CompareResult();
+    comparedResult.setCode(DiffResultCode.COMPARED_WITHOUT_DIFFERENCE);
+    comparedResult.setProcessedBaseMsg(record);
+    comparedResult.setProcessedTestMsg(result);
+    MsgInfo msgInfo = new MsgInfo();
+    msgInfo.setMsgMiss(NO_MSG_MISS);
+    comparedResult.setMsgInfo(msgInfo);
+    return comparedResult;
+  }
+
   private void mergeResult(String operation, String category, ReplayCompareResult diffResult,
       CompareResult sdkResult, CompareItem source, CompareItem target) {
     diffResult.setOperationName(operation);
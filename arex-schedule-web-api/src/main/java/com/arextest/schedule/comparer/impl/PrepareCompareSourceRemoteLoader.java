@@ -12,9 +12,15 @@ import com.arextest.schedule.comparer.CompareItem;
 import com.arextest.schedule.model.ReplayActionCaseItem;
 import com.arextest.schedule.serialization.ZstdJacksonSerializer;
 import com.arextest.schedule.service.MetricService;
+import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
 import javax.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
@@ -27,6 +33,8 @@ import org.springframework.stereotype.Component;
 public final class PrepareCompareSourceRemoteLoader {
 
   private static final int INDEX_NOT_FOUND = -1;
+  // below this many mockers a result holder is decoded on the calling thread
+  private static final int PARALLEL_DECODE_THRESHOLD = 8;
   @Resource
   MetricService metricService;
   @Value("${arex.storage.replayResult.url}")
@@ -37,6 +45,39 @@ public final class PrepareCompareSourceRemoteLoader {
   private ZstdJacksonSerializer zstdJacksonSerializer;
   @Resource
   private PrepareCompareItemBuilder prepareCompareItemBuilder;
+  @Resource
+  private ExecutorService compareSourceLoadExecutorService;
+  @Value("${arex.schedule.compareSource.batch.parallelism:8}")
+  private int batchParallelism;
+
+  /**
+   * Load the compare sources of many cases, e.g. all cases of one action. The storage api serves
+   * one record per request, so the requests of the cases run concurrently, at most
+   * batchParallelism of them at a time.
+   *
+   * @return the compare holders by case id, in the order of the given cases
+   */
+  public Map<String, List<CategoryComparisonHolder>> buildWaitCompareList(
+      List<ReplayActionCaseItem> caseItems, boolean useReplayId) {
+    Map<String, List<CategoryComparisonHolder>> result = new LinkedHashMap<>(caseItems.size());
+    for (List<ReplayActionCaseItem> batch : Lists.partition(caseItems,
+        Math.max(batchParallelism, 1))) {
+      List<CompletableFuture<List<CategoryComparisonHolder>>> futures = batch.stream()
+          .map(caseItem -> CompletableFuture
+              .supplyAsync(() -> buildWaitCompareList(caseItem, useReplayId),
+                  compareSourceLoadExecutorService)
+              .exceptionally(throwable -> {
+                LOGGER.error("load compare source error: {}, case id: {}",
+                    throwable.getMessage(), caseItem.getId(), throwable);
+                return Collections.emptyList();
+              }))
+          .collect(Collectors.toList());
+      for (int i = 0; i < batch.size(); i++) {
+        result.put(batch.get(i).getId(), futures.get(i).join());
+      }
+    }
+    return result;
+  }
 
   public List<CategoryComparisonHolder> buildWaitCompareList(ReplayActionCaseItem caseItem,
       boolean useReplayId) {
@@ -50,10 +91,13 @@ public final class PrepareCompareSourceRemoteLoader {
 
     if (StringUtils.isNotBlank(sourceResultId)) {
 
-      List<CategoryComparisonHolder> sourceResponse = this.getReplayResult(recordId,
-          sourceResultId);
+      final String finalSourceResultId = sourceResultId;
+      CompletableFuture<List<CategoryComparisonHolder>> sourceFuture = CompletableFuture
+          .supplyAsync(() -> this.getReplayResult(recordId, finalSourceResultId),
+              compareSourceLoadExecutorService);
       List<CategoryComparisonHolder> targetResponse = this.getReplayResult(recordId,
           targetResultId);
+      List<CategoryComparisonHolder> sourceResponse = sourceFuture.join();
       if (CollectionUtils.isEmpty(sourceResponse) || CollectionUtils.isEmpty(targetResponse)) {
         LOGGER.warn(
             "replay recordId:{} invalid response,source replayId:{} size:{},target replayId:{} size:{}",
@@ -139,13 +183,22 @@ public final class PrepareCompareSourceRemoteLoader {
       return Collections.emptyList();
     }
     List<CompareItem> decodedResult = new ArrayList<>(base64List.size());
-    for (int i = 0; i < base64List.size(); i++) {
-      String base64 = base64List.get(i);
-      AREXMocker source = zstdJacksonSerializer.deserialize(base64, AREXMocker.class);
-      if (source == null) {
-        continue;
+    if (base64List.size() < PARALLEL_DECODE_THRESHOLD) {
+      for (int i = 0; i < base64List.size(); i++) {
+        CompareItem item = decodeCompareItem(base64List.get(i));
+        if (item != null) {
+          decodedResult.add(item);
+        }
       }
-      CompareItem item = prepareCompareItemBuilder.build(source);
+      return decodedResult;
+    }
+    List<CompletableFuture<CompareItem>> futures = new ArrayList<>(base64List.size());
+    for (String base64 : base64List) {
+      futures.add(CompletableFuture.supplyAsync(() -> decodeCompareItem(base64),
+          compareSourceLoadExecutorService));
+    }
+    for (CompletableFuture<CompareItem> future : futures) {
+      CompareItem item = future.join();
       if (item != null) {
         decodedResult.add(item);
       }
@@ -153,6 +206,14 @@ public final class PrepareCompareSourceRemoteLoader {
     return decodedResult;
   }
 
+  private CompareItem decodeCompareItem(String base64) {
+    AREXMocker source = zstdJacksonSerializer.deserialize(base64, AREXMocker.class);
+    if (source == null) {
+      return null;
+    }
+    return prepareCompareItemBuilder.build(source);
+  }
+
   private List<CategoryComparisonHolder> buildWaitCompareList(
       List<CategoryComparisonHolder> sourceResult,
       List<CategoryComparisonHolder> targetResultList) {
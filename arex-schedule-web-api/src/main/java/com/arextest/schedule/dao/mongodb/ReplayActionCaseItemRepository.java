@@ -8,26 +8,44 @@ import com.arextest.schedule.model.ReplayActionCaseItem;
 import com.arextest.schedule.model.ReplayActionCaseItem.Fields;
 import com.arextest.schedule.model.converter.ReplayRunDetailsConverter;
 import com.arextest.schedule.model.dao.mongodb.ReplayRunDetailsCollection;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.BulkOperationException;
 import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
@@ -53,12 +71,128 @@ public class ReplayActionCaseItemRepository implements RepositoryWriter<ReplayAc
   private static final String RECORD_TIME = "recordTime";
   private static final String LAST_RECORD_TIME_FIELD = "lastRecordTime";
   private static final String ID_FIELD = "_id";
+  private static final String WAITING_SEND_INDEX = "planId_contextIdentifier_recordTime_id";
+  private static final String WAITING_SEND_STATUS_INDEX =
+      "waitingSend_planId_contextIdentifier_recordTime_id";
+  private static final String WAITING_COMPARE_STATUS_INDEX =
+      "waitingCompare_planId_contextIdentifier_recordTime_id";
 
   @Autowired
   MongoTemplate mongoTemplate;
   @Resource
   private ReplayRunDetailsConverter converter;
 
+  /**
+   * write-behind mode for send results, the pending results are flushed as one unordered bulk
+   * operation when the batch size or the flush interval is reached.
+   */
+  @Value("${arex.schedule.sendResult.batch.enable:false}")
+  private boolean sendResultBatchEnable;
+  @Value("${arex.schedule.sendResult.batch.size:200}")
+  private int sendResultBatchSize;
+  @Value("${arex.schedule.sendResult.batch.flushMillis:200}")
+  private long sendResultFlushMillis;
+
+  /**
+   * bulk mode for compare statuses, the statuses written by concurrent compares are merged into
+   * one unordered bulk operation per flush.
+   */
+  @Value("${arex.schedule.compareStatus.batch.enable:false}")
+  private boolean compareStatusBatchEnable;
+  @Value("${arex.schedule.compareStatus.batch.size:200}")
+  private int compareStatusBatchSize;
+  @Value("${arex.schedule.compareStatus.batch.flushMillis:200}")
+  private long compareStatusFlushMillis;
+
+  private final BlockingQueue<PendingSendResult> pendingSendResults = new LinkedBlockingQueue<>();
+  private final Object sendResultFlushLock = new Object();
+  private ScheduledExecutorService sendResultFlusher;
+  private final BlockingQueue<Pair<String, Integer>> pendingCompareStatuses =
+      new LinkedBlockingQueue<>();
+  private final Object compareStatusFlushLock = new Object();
+  private ScheduledExecutorService compareStatusFlusher;
+
+  @PostConstruct
+  private void init() {
+    ensureWaitingSendIndex();
+    initSendResultFlusher();
+    initCompareStatusFlusher();
+  }
+
+  /**
+   * the indexes behind the paging of {@link #waitingSendList}, the cases of an execution context
+   * are queried by plan and context identifier and read in the order of record time.
+   *
+   * The waiting filter is an $or on sendStatus and compareStatus, which a plain compound index can
+   * only apply as a residual filter after reading every case of the context. Each branch of the
+   * $or has a partial index holding only the cases waiting on that status, so the planner scans
+   * the two partial indexes and merges them on (recordTime, _id). Handled cases drop out of the
+   * partial indexes, and a page only reads the waiting cases.
+   */
+  private void ensureWaitingSendIndex() {
+    ensureIndex(waitingSendIndex(WAITING_SEND_INDEX));
+    ensureIndex(waitingSendIndex(WAITING_SEND_STATUS_INDEX)
+        .partial(PartialIndexFilter.of(Criteria.where(ReplayRunDetailsCollection.Fields.SEND_STATUS)
+            .is(CaseSendStatusType.WAIT_HANDLING.getValue()))));
+    ensureIndex(waitingSendIndex(WAITING_COMPARE_STATUS_INDEX)
+        .partial(PartialIndexFilter.of(
+            Criteria.where(ReplayRunDetailsCollection.Fields.COMPARE_STATUS)
+                .is(CompareProcessStatusType.WAIT_HANDLING.getValue()))));
+  }
+
+  private static Index waitingSendIndex(String name) {
+    return new Index()
+        .on(ReplayRunDetailsCollection.Fields.PLAN_ID, Direction.ASC)
+        .on(ReplayRunDetailsCollection.Fields.CONTEXT_IDENTIFIER, Direction.ASC)
+        .on(ReplayRunDetailsCollection.Fields.RECORD_TIME, Direction.ASC)
+        .on(DASH_ID, Direction.ASC)
+        .named(name)
+        .background();
+  }
+
+  private void ensureIndex(Index index) {
+    try {
+      mongoTemplate.indexOps(ReplayRunDetailsCollection.class).ensureIndex(index);
+    } catch (Exception e) {
+      LOGGER.error("ensure index {} error", index.getIndexOptions().get("name"), e);
+    }
+  }
+
+  private void initSendResultFlusher() {
+    if (!sendResultBatchEnable) {
+      return;
+    }
+    sendResultFlusher = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("send-result-flusher-%d")
+            .build());
+    sendResultFlusher.scheduleWithFixedDelay(this::flushSendResults, sendResultFlushMillis,
+        sendResultFlushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void initCompareStatusFlusher() {
+    if (!compareStatusBatchEnable) {
+      return;
+    }
+    compareStatusFlusher = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("compare-status-flusher-%d")
+            .build());
+    compareStatusFlusher.scheduleWithFixedDelay(this::flushCompareStatuses,
+        compareStatusFlushMillis, compareStatusFlushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  private void destroyFlushers() {
+    if (compareStatusFlusher != null) {
+      compareStatusFlusher.shutdown();
+      flushCompareStatuses();
+    }
+    if (sendResultFlusher == null) {
+      return;
+    }
+    sendResultFlusher.shutdown();
+    flushSendResults();
+  }
+
   @Override
   public boolean save(ReplayActionCaseItem replayActionCaseItem) {
     ReplayRunDetailsCollection replayRunDetailsCollection = converter.daoFromDto(
@@ -95,26 +229,39 @@ public class ReplayActionCaseItemRepository implements RepositoryWriter<ReplayAc
    * The case order is to control the order of extra mockers yields during the replay phase, please
    * make sure you discuss with agent team before changing the order.
    * todo make order configurable
+   *
+   * The pages are read with a keyset cursor on (recordTime, _id) after the last case of the
+   * previous page, so each page starts with an index seek on the partial indexes of
+   * {@link #ensureWaitingSendIndex}.
    */
   public List<ReplayActionCaseItem> waitingSendList(String planId, int pageSize,
-      List<Criteria> baseCriteria, Long minRecordTime) {
+      List<Criteria> baseCriteria, ReplayActionCaseItem lastItem) {
     Query query = new Query();
 
     Optional.ofNullable(baseCriteria).ifPresent(criteria -> criteria.forEach(query::addCriteria));
 
     query.addCriteria(Criteria.where(ReplayActionCaseItem.Fields.PLAN_ID).is(planId));
-    query.addCriteria(new Criteria().orOperator(
+    Criteria waitingCriteria = new Criteria().orOperator(
         Criteria.where(ReplayActionCaseItem.Fields.SEND_STATUS)
             .is(CaseSendStatusType.WAIT_HANDLING.getValue()),
         Criteria.where(ReplayActionCaseItem.Fields.COMPARE_STATUS)
             .is(CompareProcessStatusType.WAIT_HANDLING.getValue())
-    ));
-    if (minRecordTime != null) {
+    );
+    if (lastItem == null) {
+      query.addCriteria(waitingCriteria);
+    } else {
+      // the range on recordTime bounds the index scan, the _id only breaks ties on the same time
       query.addCriteria(
-          Criteria.where(ReplayRunDetailsCollection.Fields.RECORD_TIME).gte(minRecordTime));
+          Criteria.where(ReplayRunDetailsCollection.Fields.RECORD_TIME)
+              .gte(lastItem.getRecordTime()));
+      query.addCriteria(new Criteria().andOperator(waitingCriteria, new Criteria().orOperator(
+          Criteria.where(ReplayRunDetailsCollection.Fields.RECORD_TIME)
+              .gt(lastItem.getRecordTime()),
+          Criteria.where(DASH_ID).gt(lastItem.getId()))));
     }
     query.limit(pageSize);
-    query.with(Sort.by(Sort.Order.asc(ReplayRunDetailsCollection.Fields.RECORD_TIME)));
+    query.with(Sort.by(Sort.Order.asc(ReplayRunDetailsCollection.Fields.RECORD_TIME),
+        Sort.Order.asc(DASH_ID)));
 
     List<ReplayRunDetailsCollection> replayRunDetailsCollections = mongoTemplate.find(query,
         ReplayRunDetailsCollection.class);
@@ -123,9 +270,57 @@ public class ReplayActionCaseItemRepository implements RepositoryWriter<ReplayAc
   }
 
   /**
-   * Get the case list that failed to send or compare.
+   * Whether there is any case that failed to send or compare.
    */
-  public List<ReplayActionCaseItem> failedCaseList(String planId, String planItemId) {
+  public boolean hasFailedCase(String planId, String planItemId) {
+    return mongoTemplate.exists(failedCaseQuery(planId, planItemId),
+        ReplayRunDetailsCollection.class);
+  }
+
+  /**
+   * Read the cases that failed to send or compare page by page in the order of id, each page is
+   * handed to the consumer as soon as it is read. Only the fields needed to reset and regroup the
+   * cases are loaded, the request of the case stays in mongo.
+   *
+   * @return the number of failed cases
+   */
+  public int streamFailedCases(String planId, String planItemId, int pageSize,
+      Consumer<List<ReplayActionCaseItem>> pageConsumer) {
+    int total = 0;
+    String lastId = null;
+    while (true) {
+      Query query = failedCaseQuery(planId, planItemId);
+      if (lastId != null) {
+        query.addCriteria(Criteria.where(DASH_ID).gt(lastId));
+      }
+      query.fields().include(ReplayRunDetailsCollection.Fields.PLAN_ID,
+          ReplayRunDetailsCollection.Fields.PLAN_ITEM_ID,
+          ReplayRunDetailsCollection.Fields.RECORD_ID,
+          ReplayRunDetailsCollection.Fields.TARGET_RESULT_ID,
+          ReplayRunDetailsCollection.Fields.SOURCE_RESULT_ID,
+          ReplayRunDetailsCollection.Fields.CONTEXT_IDENTIFIER,
+          ReplayRunDetailsCollection.Fields.SEND_STATUS,
+          ReplayRunDetailsCollection.Fields.COMPARE_STATUS,
+          ReplayRunDetailsCollection.Fields.CASE_TYPE);
+      query.with(Sort.by(Sort.Order.asc(DASH_ID)));
+      query.limit(pageSize);
+
+      List<ReplayRunDetailsCollection> page = mongoTemplate.find(query,
+          ReplayRunDetailsCollection.class);
+      if (page.isEmpty()) {
+        return total;
+      }
+      total += page.size();
+      lastId = page.get(page.size() - 1).getId();
+      pageConsumer.accept(page.stream().map(this::failedCaseFromDao)
+          .collect(Collectors.toList()));
+      if (page.size() < pageSize) {
+        return total;
+      }
+    }
+  }
+
+  private Query failedCaseQuery(String planId, String planItemId) {
     Query query = new Query();
     query.addCriteria(Criteria.where(ReplayActionCaseItem.Fields.PLAN_ID).is(planId));
     if (StringUtils.hasText(planItemId)) {
@@ -137,11 +332,25 @@ public class ReplayActionCaseItemRepository implements RepositoryWriter<ReplayAc
         Criteria.where(ReplayActionCaseItem.Fields.COMPARE_STATUS)
             .ne(CompareProcessStatusType.PASS.getValue())
     ));
+    return query;
+  }
 
-    List<ReplayRunDetailsCollection> replayRunDetailsCollections = mongoTemplate.find(query,
-        ReplayRunDetailsCollection.class);
-    return replayRunDetailsCollections.stream().map(converter::dtoFromDao)
-        .collect(Collectors.toList());
+  /**
+   * The projected document has no request, so skip the converter which decompresses it.
+   */
+  private ReplayActionCaseItem failedCaseFromDao(ReplayRunDetailsCollection dao) {
+    ReplayActionCaseItem caseItem = new ReplayActionCaseItem();
+    caseItem.setId(dao.getId());
+    caseItem.setPlanId(dao.getPlanId());
+    caseItem.setPlanItemId(dao.getPlanItemId());
+    caseItem.setRecordId(dao.getRecordId());
+    caseItem.setTargetResultId(dao.getTargetResultId());
+    caseItem.setSourceResultId(dao.getSourceResultId());
+    caseItem.setContextIdentifier(dao.getContextIdentifier());
+    caseItem.setSendStatus(dao.getSendStatus());
+    caseItem.setCompareStatus(dao.getCompareStatus());
+    caseItem.setCaseType(dao.getCaseType());
+    return caseItem;
   }
 
   public Map<String, Long> countWaitHandlingByAction(String planId, List<Criteria> baseCriteria) {
@@ -177,7 +386,141 @@ public class ReplayActionCaseItemRepository implements RepositoryWriter<ReplayAc
     return updateResult.getModifiedCount() > 0;
   }
 
+  public boolean isSendResultBatchEnabled() {
+    return sendResultBatchEnable;
+  }
+
+  /**
+   * Buffer the send result and write it with the next bulk flush, the returned future completes
+   * with the write result of this case. Falls back to a direct update if batching is disabled.
+   */
+  public CompletableFuture<Boolean> updateSendResultAsync(
+      ReplayActionCaseItem replayActionCaseItem) {
+    if (!sendResultBatchEnable) {
+      return CompletableFuture.completedFuture(updateSendResult(replayActionCaseItem));
+    }
+    MongoHelper.assertNull("update parameter is null", replayActionCaseItem.getSourceResultId(),
+        replayActionCaseItem.getTargetResultId());
+    CompletableFuture<Boolean> future = new CompletableFuture<>();
+    pendingSendResults.add(new PendingSendResult(replayActionCaseItem, future));
+    if (pendingSendResults.size() >= sendResultBatchSize) {
+      flushSendResults();
+    }
+    return future;
+  }
+
+  /**
+   * Write all buffered send results, called before the send statuses of a finished plan or of a
+   * plan to rerun are read.
+   */
+  public void flushSendResults() {
+    // a batch drained by another thread is written before this returns
+    synchronized (sendResultFlushLock) {
+      while (!pendingSendResults.isEmpty()) {
+        List<PendingSendResult> batch = new ArrayList<>(sendResultBatchSize);
+        pendingSendResults.drainTo(batch, sendResultBatchSize);
+        writeSendResults(batch);
+      }
+    }
+  }
+
+  private void writeSendResults(List<PendingSendResult> batch) {
+    try {
+      BulkOperations bulkOperations =
+          mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+              ReplayRunDetailsCollection.class);
+      List<Pair<Query, Update>> updates = new ArrayList<>(batch.size());
+      for (PendingSendResult pending : batch) {
+        ReplayActionCaseItem caseItem = pending.getCaseItem();
+        Update update = MongoHelper.getUpdate();
+        update.set(SEND_STATUS, caseItem.getSendStatus());
+        update.set(SOURCE_RESULT_ID, caseItem.getSourceResultId());
+        update.set(TARGET_RESULT_ID, caseItem.getTargetResultId());
+        updates.add(Pair.of(Query.query(Criteria.where(DASH_ID).is(caseItem.getId())), update));
+      }
+      bulkOperations.updateOne(updates).execute();
+      batch.forEach(pending -> pending.getFuture().complete(true));
+    } catch (BulkOperationException e) {
+      // unordered bulk keeps going after a failed write, only the reported indexes failed
+      Set<Integer> failedIndexes = e.getErrors().stream().map(BulkWriteError::getIndex)
+          .collect(Collectors.toSet());
+      LOGGER.error("bulk update send result partially failed, failed size: {}",
+          failedIndexes.size(), e);
+      for (int i = 0; i < batch.size(); i++) {
+        batch.get(i).getFuture().complete(!failedIndexes.contains(i));
+      }
+    } catch (Throwable t) {
+      LOGGER.error("bulk update send result error, batch size: {}", batch.size(), t);
+      batch.forEach(pending -> pending.getFuture().complete(false));
+    }
+  }
+
+  /**
+   * In bulk mode the status is buffered and written with the next flush, true is returned once it
+   * is buffered.
+   */
   public boolean updateCompareStatus(String id, int comparedStatus) {
+    if (compareStatusBatchEnable) {
+      pendingCompareStatuses.add(Pair.of(id, comparedStatus));
+      if (pendingCompareStatuses.size() >= compareStatusBatchSize) {
+        flushCompareStatuses();
+      }
+      return true;
+    }
+    return doUpdateCompareStatus(id, comparedStatus);
+  }
+
+  /**
+   * Write all buffered compare statuses, called before the statuses of a finished plan are read.
+   */
+  public void flushCompareStatuses() {
+    synchronized (compareStatusFlushLock) {
+      while (!pendingCompareStatuses.isEmpty()) {
+        List<Pair<String, Integer>> batch = new ArrayList<>(compareStatusBatchSize);
+        pendingCompareStatuses.drainTo(batch, compareStatusBatchSize);
+        writeCompareStatuses(batch);
+      }
+    }
+  }
+
+  private void writeCompareStatuses(List<Pair<String, Integer>> batch) {
+    // the bulk is unordered, only the latest status of a case is written
+    Map<String, Integer> latestStatus = new LinkedHashMap<>();
+    batch.forEach(pending -> latestStatus.put(pending.getFirst(), pending.getSecond()));
+    List<String> ids = new ArrayList<>(latestStatus.keySet());
+    try {
+      BulkOperations bulkOperations =
+          mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+              ReplayRunDetailsCollection.class);
+      List<Pair<Query, Update>> updates = new ArrayList<>(ids.size());
+      for (String id : ids) {
+        Update update = MongoHelper.getUpdate();
+        update.set(COMPARE_STATUS, latestStatus.get(id));
+        updates.add(Pair.of(Query.query(Criteria.where(DASH_ID).is(id)), update));
+      }
+      bulkOperations.updateOne(updates).execute();
+    } catch (BulkOperationException e) {
+      LOGGER.error("bulk update compare status partially failed, failed size: {}",
+          e.getErrors().size(), e);
+      for (BulkWriteError error : e.getErrors()) {
+        String id = ids.get(error.getIndex());
+        retryCompareStatus(id, latestStatus.get(id));
+      }
+    } catch (Throwable t) {
+      LOGGER.error("bulk update compare status error, batch size: {}", ids.size(), t);
+      latestStatus.forEach(this::retryCompareStatus);
+    }
+  }
+
+  private void retryCompareStatus(String id, int comparedStatus) {
+    try {
+      doUpdateCompareStatus(id, comparedStatus);
+    } catch (Throwable t) {
+      LOGGER.error("retry compare status error, case id: {}", id, t);
+    }
+  }
+
+  private boolean doUpdateCompareStatus(String id, int comparedStatus) {
     Query query = Query.query(Criteria.where(DASH_ID).is(id));
     Update update = MongoHelper.getUpdate();
     update.set(COMPARE_STATUS, comparedStatus);
@@ -288,6 +631,14 @@ public class ReplayActionCaseItemRepository implements RepositoryWriter<ReplayAc
     return deleteResult.getDeletedCount() > 0;
   }
 
+  @Data
+  @AllArgsConstructor
+  private static class PendingSendResult {
+
+    private ReplayActionCaseItem caseItem;
+    private CompletableFuture<Boolean> future;
+  }
+
   @Data
   public static class GroupCountRes {
     @Id
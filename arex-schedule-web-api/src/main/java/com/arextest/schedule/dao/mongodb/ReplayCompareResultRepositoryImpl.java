@@ -4,13 +4,16 @@ import com.arextest.schedule.dao.RepositoryWriter;
 import com.arextest.schedule.model.ReplayCompareResult;
 import com.arextest.schedule.model.converter.ReplayCompareResultConverter;
 import com.arextest.schedule.model.dao.mongodb.ReplayCompareResultCollection;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import javax.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
 @Slf4j
@@ -47,6 +50,41 @@ public class ReplayCompareResultRepositoryImpl implements RepositoryWriter<Repla
     return mongoTemplate.remove(query, ReplayCompareResultCollection.class).getDeletedCount() > 0;
   }
 
+  /**
+   * delete the results of several records in one round trip
+   *
+   * @param planItemIdToRecordIds record ids grouped by plan item id
+   */
+  public boolean deleteByRecords(Map<String, List<String>> planItemIdToRecordIds) {
+    if (planItemIdToRecordIds == null || planItemIdToRecordIds.isEmpty()) {
+      return false;
+    }
+    List<Criteria> criteriaList = new ArrayList<>(planItemIdToRecordIds.size());
+    planItemIdToRecordIds.forEach((planItemId, recordIds) -> criteriaList.add(
+        Criteria.where(ReplayCompareResult.Fields.PLAN_ITEM_ID).is(planItemId)
+            .and(ReplayCompareResult.Fields.RECORD_ID).in(recordIds)));
+    Query query = new Query();
+    query.addCriteria(criteriaList.size() == 1 ? criteriaList.get(0)
+        : new Criteria().orOperator(criteriaList.toArray(new Criteria[0])));
+    return mongoTemplate.remove(query, ReplayCompareResultCollection.class).getDeletedCount() > 0;
+  }
+
+  /**
+   * write the diff details of an existing result, a result deleted meanwhile (e.g. by a rerun)
+   * is not brought back.
+   */
+  public boolean updateDiffDetail(ReplayCompareResult item) {
+    ReplayCompareResultCollection dao = replayCompareResultConverter.daoFromBo(item);
+    Query query = new Query();
+    query.addCriteria(Criteria.where(DASH_ID).is(item.getId()));
+    Update update = new Update()
+        .set(ReplayCompareResult.Fields.BASE_MSG, dao.getBaseMsg())
+        .set(ReplayCompareResult.Fields.TEST_MSG, dao.getTestMsg())
+        .set(ReplayCompareResult.Fields.LOGS, dao.getLogs());
+    return mongoTemplate.updateFirst(query, update, ReplayCompareResultCollection.class)
+        .getModifiedCount() > 0;
+  }
+
   public ReplayCompareResult queryCompareResultsById(String objectId) {
     Query query = new Query();
     query.addCriteria(Criteria.where(DASH_ID).is(objectId));
@@ -0,0 +1,15 @@
+package com.arextest.schedule.eventBus;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Posted after compare results are saved, with the ids of the saved results that have
+ * differences but no diff details yet.
+ */
+@Data
+@AllArgsConstructor
+public class CompareResultsSavedEvent {
+  private List<String> compareResultIds;
+}
@@ -45,7 +45,35 @@ public enum LogType {
   /**
    * compare sdk request time. eg: COMPARE_INSTANCE.compare(record, result, options)
    */
-  COMPARE_SDK("compareSdkTime");
+  COMPARE_SDK("compareSdkTime"),
+  /**
+   * number of http connections currently leased from the shared pool
+   */
+  HTTP_POOL_LEASED("httpPoolLeased"),
+  /**
+   * number of requests waiting for a pooled http connection
+   */
+  HTTP_POOL_PENDING("httpPoolPending"),
+  /**
+   * number of idle keep-alive http connections in the shared pool
+   */
+  HTTP_POOL_AVAILABLE("httpPoolAvailable"),
+  /**
+   * compare config reads served by the process-local cache
+   */
+  COMPARE_CONFIG_CACHE_HIT("compareConfigCacheHit"),
+  /**
+   * compare config reads that missed the process-local cache
+   */
+  COMPARE_CONFIG_CACHE_MISS("compareConfigCacheMiss"),
+  /**
+   * time spent loading a compare config from redis on a local cache miss
+   */
+  COMPARE_CONFIG_LOAD_TIME("compareConfigLoadTime"),
+  /**
+   * number of sent cases waiting in the compare pipeline
+   */
+  COMPARE_PIPELINE_SIZE("comparePipelineSize");
 
   @Getter
   final String value;
@@ -1,5 +1,6 @@
 package com.arextest.schedule.model;
 
+import com.arextest.schedule.common.SendInFlightWindow;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.List;
 import lombok.Data;
@@ -31,6 +32,10 @@ public class PlanExecutionContext<T> {
   @JsonIgnore
   private T dependencies;
 
+  // cases of this context submitted for sending but not finished yet
+  @JsonIgnore
+  private final SendInFlightWindow sendWindow = new SendInFlightWindow();
+
   public static String buildContextName(String identifier) {
     String suffix = identifier == null ? NO_CONTEXT_SUFFIX : identifier;
     return CONTEXT_PREFIX + suffix;
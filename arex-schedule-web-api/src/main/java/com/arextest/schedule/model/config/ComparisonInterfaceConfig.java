@@ -20,6 +20,10 @@ public class ComparisonInterfaceConfig extends ReplayComparisonConfig {
     return CommonConstant.COMPARE_CONFIG_REDIS_KEY + actionId;
   }
 
+  public static String versionKey(String actionId) {
+    return CommonConstant.COMPARE_CONFIG_VERSION_REDIS_KEY + actionId;
+  }
+
   public static ComparisonInterfaceConfig empty() {
     ComparisonInterfaceConfig config = new ComparisonInterfaceConfig();
     config.fillCommonFields();
@@ -94,6 +94,10 @@ public interface ProgressEvent {
   default void onReplayCaseFinish(ReplayActionCaseItem actionItem){
   }
 
+  /**
+   * Once per page of failed cases during a rerun, before that page is reset. The cases carry
+   * their ids and original statuses, not their requests.
+   */
   default void onUpdateFailedCases(ReplayPlan replayPlan, List<ReplayActionCaseItem> caseItemList) {
 
   }
@@ -6,13 +6,23 @@ import com.arextest.schedule.model.ReplayActionItem;
 import com.arextest.schedule.model.ReplayPlan;
 import com.arextest.schedule.progress.ProgressEvent;
 import com.arextest.schedule.progress.ProgressTracer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
@@ -35,6 +45,40 @@ final class RedisProgressTracerImpl implements ProgressTracer {
   private ProgressEvent progressEvent;
   @Resource
   private CacheProvider redisCacheProvider;
+  @Resource
+  private ExecutorService postSendExecutorService;
+
+  /**
+   * coalescing mode for finished cases, the increments of a plan are summed up and written with
+   * one incr and one update time refresh per flush interval instead of per case.
+   */
+  @Value("${arex.schedule.progress.coalesce.enable:false}")
+  private boolean coalesceEnable;
+  @Value("${arex.schedule.progress.coalesce.flushMillis:200}")
+  private long coalesceFlushMillis;
+
+  private final Map<String, PendingProgress> pendingProgress = new ConcurrentHashMap<>();
+  private ScheduledExecutorService progressFlusher;
+
+  @PostConstruct
+  private void initProgressFlusher() {
+    if (!coalesceEnable) {
+      return;
+    }
+    progressFlusher = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("progress-flusher-%d").build());
+    progressFlusher.scheduleWithFixedDelay(this::flushProgress, coalesceFlushMillis,
+        coalesceFlushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  private void destroyProgressFlusher() {
+    if (progressFlusher == null) {
+      return;
+    }
+    progressFlusher.shutdown();
+    flushProgress();
+  }
 
   @Override
   public void initTotal(ReplayPlan replayPlan) {
@@ -95,18 +139,50 @@ final class RedisProgressTracerImpl implements ProgressTracer {
 
   @Override
   public void finishCaseByAction(ReplayActionItem actionItem, int count) {
-    ReplayPlan replayPlan = actionItem.getParent();
-    doPlanFinish(replayPlan, count);
-    this.refreshUpdateTime(replayPlan.getId());
+    finishCaseByPlan(actionItem.getParent(), count);
   }
 
   @Override
   public void finishCaseByPlan(ReplayPlan replayPlan, int count) {
-    doPlanFinish(replayPlan, count);
+    if (coalesceEnable) {
+      pendingProgress.compute(replayPlan.getId(), (planId, pending) -> {
+        if (pending == null) {
+          pending = new PendingProgress(replayPlan);
+        }
+        pending.count.addAndGet(count);
+        return pending;
+      });
+      return;
+    }
+    if (doPlanFinish(replayPlan, count)) {
+      progressEvent.onReplayPlanFinish(replayPlan);
+    }
     this.refreshUpdateTime(replayPlan.getId());
   }
 
-  private void doPlanFinish(ReplayPlan replayPlan, int count) {
+  void flushProgress() {
+    for (Map.Entry<String, PendingProgress> entry : pendingProgress.entrySet()) {
+      String planId = entry.getKey();
+      PendingProgress pending = entry.getValue();
+      int count = pending.count.getAndSet(0);
+      // increments arriving after getAndSet stay in the entry for the next flush
+      pendingProgress.computeIfPresent(planId, (k, v) -> v.count.get() == 0 ? null : v);
+      if (count == 0) {
+        continue;
+      }
+      ReplayPlan replayPlan = pending.replayPlan;
+      if (doPlanFinish(replayPlan, count)) {
+        // keep the flusher free for the other plans, finishing a plan may take a while
+        postSendExecutorService.execute(() -> progressEvent.onReplayPlanFinish(replayPlan));
+      }
+      this.refreshUpdateTime(planId);
+    }
+  }
+
+  /**
+   * @return true if this increment reached the case count of the plan
+   */
+  private boolean doPlanFinish(ReplayPlan replayPlan, int count) {
     String planId = replayPlan.getId();
     int caseCount = replayPlan.isReRun()
         ? replayPlan.getCaseRerunCount()
@@ -114,13 +190,12 @@ final class RedisProgressTracerImpl implements ProgressTracer {
     try {
       Long finished = doWithRetry(
           () -> redisCacheProvider.incrValueBy(toPlanFinishKeyBytes(planId), count));
-      if (finished != null && finished == caseCount) {
-        progressEvent.onReplayPlanFinish(replayPlan);
-      }
+      return finished != null && finished >= caseCount && finished - count < caseCount;
     } catch (Throwable throwable) {
 
       LOGGER.error("do plan finish error: {} ,plan id: {}", throwable.getMessage(), planId,
           throwable);
+      return false;
     }
   }
 
@@ -184,9 +259,21 @@ final class RedisProgressTracerImpl implements ProgressTracer {
   @Override
   public void reRunPlan(ReplayPlan replayPlan) {
     String planId = replayPlan.getId();
+    // increments left from the previous run must not count into the new one
+    pendingProgress.remove(planId);
 
     byte[] totalKey = toPlanFinishKeyBytes(planId);
     redisCacheProvider.put(totalKey, String.valueOf(0).getBytes(StandardCharsets.UTF_8));
     this.refreshUpdateTime(planId);
   }
-}
\ No newline at end of file
+
+  private static final class PendingProgress {
+
+    private final ReplayPlan replayPlan;
+    private final AtomicInteger count = new AtomicInteger();
+
+    private PendingProgress(ReplayPlan replayPlan) {
+      this.replayPlan = replayPlan;
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.arextest.schedule.progress.impl;
 import com.alibaba.fastjson2.util.DateUtils;
 import com.arextest.common.cache.CacheProvider;
 import com.arextest.schedule.bizlog.BizLogger;
+import com.arextest.schedule.dao.mongodb.ReplayActionCaseItemRepository;
 import com.arextest.schedule.dao.mongodb.ReplayPlanActionRepository;
 import com.arextest.schedule.dao.mongodb.ReplayPlanRepository;
 import com.arextest.schedule.eventBus.PlanAutoRerunEvent;
@@ -21,8 +22,16 @@ import com.arextest.schedule.service.ReplayReportService;
 import com.arextest.schedule.utils.StageUtils;
 import com.arextest.web.model.contract.contracts.common.PlanStatistic;
 import com.google.common.eventbus.AsyncEventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -35,9 +44,12 @@ import org.springframework.beans.factory.annotation.Value;
 public class UpdateResultProgressEventImpl implements ProgressEvent {
 
   public static final long DEFAULT_COUNT = 1L;
+  private static final long STATISTIC_CHECK_INITIAL_DELAY_MILLIS = 100L;
   @Resource
   private ReplayPlanActionRepository replayPlanActionRepository;
   @Resource
+  private ReplayActionCaseItemRepository replayActionCaseItemRepository;
+  @Resource
   private ReplayPlanRepository replayPlanRepository;
   @Resource
   private ReplayReportService replayReportService;
@@ -47,9 +59,30 @@ public class UpdateResultProgressEventImpl implements ProgressEvent {
   private CacheProvider redisCacheProvider;
   @Resource
   private AsyncEventBus autoRerunAsyncEventBus;
+  @Resource
+  private ExecutorService postSendExecutorService;
 
   @Value("${auto.rerun.threshold}")
   private double autoRerunThreshold;
+  /**
+   * the longest time to wait for the report to count every case before the auto rerun decision
+   */
+  @Value("${auto.rerun.statistic.waitMillis:5000}")
+  private long autoRerunStatisticWaitMillis;
+
+  private ScheduledExecutorService statisticChecker;
+
+  @PostConstruct
+  private void initStatisticChecker() {
+    statisticChecker = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("plan-statistic-checker-%d")
+            .build());
+  }
+
+  @PreDestroy
+  private void destroyStatisticChecker() {
+    statisticChecker.shutdown();
+  }
 
   @Override
   public void onReplayPlanReRunException(ReplayPlan plan, Throwable t) {
@@ -85,36 +118,75 @@ public class UpdateResultProgressEventImpl implements ProgressEvent {
         null, System.currentTimeMillis());
   }
 
+  /**
+   * Decide between finish and auto rerun without holding the finishing thread, the plan statistic
+   * is checked again on a backoff until the report has counted every case.
+   */
+  @Override
+  public void onReplayPlanFinish(ReplayPlan replayPlan) {
+    finishDecision(replayPlan).whenComplete((finish, throwable) -> {
+      if (throwable != null) {
+        LOGGER.error("auto rerun decision error, plan id:{}", replayPlan.getId(), throwable);
+      }
+      if (throwable != null || finish) {
+        onReplayPlanFinish(replayPlan, ReplayStatusType.FINISHED);
+      } else {
+        onReplayPlanAutoRerun(replayPlan);
+      }
+    });
+  }
+
   @Override
   public boolean onBeforeReplayPlanFinish(ReplayPlan replayPlan) {
+    return finishDecision(replayPlan).join();
+  }
+
+  private CompletableFuture<Boolean> finishDecision(ReplayPlan replayPlan) {
+    replayReportService.flushCompareResults();
+    replayActionCaseItemRepository.flushSendResults();
+    replayActionCaseItemRepository.flushCompareStatuses();
     redisCacheProvider.remove(PlanProduceService.buildPlanRunningRedisKey(replayPlan.getId()));
     // only auto rerun once
     if (replayPlan.isReRun()) {
-      return true;
+      return CompletableFuture.completedFuture(true);
     }
     if (autoRerunThreshold == 1) {
-      return true;
+      return CompletableFuture.completedFuture(true);
     }
-    // When pass rate is more than the threshold
-    // wait 5 seconds to check the plan statistic
+    // the compare results are pushed once flushed, the report usually counted them already
+    CompletableFuture<Boolean> decision = new CompletableFuture<>();
+    checkPlanStatistic(replayPlan, decision, STATISTIC_CHECK_INITIAL_DELAY_MILLIS,
+        System.currentTimeMillis() + autoRerunStatisticWaitMillis);
+    return decision;
+  }
+
+  private void checkPlanStatistic(ReplayPlan replayPlan, CompletableFuture<Boolean> decision,
+      long nextDelayMillis, long deadline) {
     try {
-      Thread.sleep(5000);
-    } catch (InterruptedException e) {
-      LOGGER.error("sleep error:{}", e.getMessage(), e);
-      Thread.currentThread().interrupt();
+      PlanStatistic planStatistic = replayReportService.queryPlanStatistic(replayPlan.getId(),
+          replayPlan.getAppId());
+      boolean statisticFinal = planStatistic != null && planStatistic.getTotalCaseCount() > 0
+          && planStatistic.getWaitCaseCount() == 0;
+      if (!statisticFinal && System.currentTimeMillis() + nextDelayMillis <= deadline) {
+        statisticChecker.schedule(() -> postSendExecutorService.execute(
+                () -> checkPlanStatistic(replayPlan, decision, nextDelayMillis * 2, deadline)),
+            nextDelayMillis, TimeUnit.MILLISECONDS);
+        return;
+      }
+      decision.complete(isBelowAutoRerunThreshold(replayPlan, planStatistic));
+    } catch (Throwable throwable) {
+      decision.completeExceptionally(throwable);
     }
+  }
 
-    PlanStatistic planStatistic = replayReportService.queryPlanStatistic(replayPlan.getId(),
-        replayPlan.getAppId());
+  private boolean isBelowAutoRerunThreshold(ReplayPlan replayPlan, PlanStatistic planStatistic) {
     if (planStatistic == null || planStatistic.getTotalCaseCount() == 0) {
       LOGGER.error("query plan statistic error, plan id:{}", replayPlan.getId());
       return true;
     }
-    if (((double) planStatistic.getSuccessCaseCount()) / planStatistic.getTotalCaseCount()
-        < autoRerunThreshold) {
-      return true;
-    }
-    return false;
+    // When pass rate is more than the threshold
+    return ((double) planStatistic.getSuccessCaseCount()) / planStatistic.getTotalCaseCount()
+        < autoRerunThreshold;
   }
 
   @Override
@@ -126,6 +198,9 @@ public class UpdateResultProgressEventImpl implements ProgressEvent {
 
   @Override
   public void onReplayPlanFinish(ReplayPlan replayPlan, ReplayStatusType reason) {
+    replayReportService.flushCompareResults();
+    replayActionCaseItemRepository.flushSendResults();
+    replayActionCaseItemRepository.flushCompareStatuses();
     replayPlan.setPlanFinishTime(new Date());
     String planId = replayPlan.getId();
     boolean result = replayPlanRepository.finish(planId);
@@ -136,6 +211,9 @@ public class UpdateResultProgressEventImpl implements ProgressEvent {
 
   @Override
   public void onReplayPlanInterrupt(ReplayPlan replayPlan, ReplayStatusType reason) {
+    replayReportService.flushCompareResults();
+    replayActionCaseItemRepository.flushSendResults();
+    replayActionCaseItemRepository.flushCompareStatuses();
     replayPlan.setPlanFinishTime(new Date());
     String planId = replayPlan.getId();
     replayPlanRepository.finish(planId);
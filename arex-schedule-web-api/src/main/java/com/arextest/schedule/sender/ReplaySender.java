@@ -2,6 +2,7 @@ package com.arextest.schedule.sender;
 
 import com.arextest.schedule.model.ReplayActionCaseItem;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author jmo
@@ -24,6 +25,22 @@ public interface ReplaySender {
     return send(caseItem);
   }
 
+  /**
+   * Indicate {@link #sendAsync(ReplayActionCaseItem)} completes through callbacks instead of
+   * holding the calling thread until the case is sent
+   */
+  default boolean isAsync() {
+    return false;
+  }
+
+  /**
+   * Try to send the replay case to remote target host, the future completes with the result of
+   * the send
+   */
+  default CompletableFuture<Boolean> sendAsync(ReplayActionCaseItem caseItem) {
+    return CompletableFuture.completedFuture(send(caseItem));
+  }
+
   /**
    * The value is optional and represents an order value. Higher values have higher priority. The
    * default value is 0. For the same category type sender if you want to implement it, make sure
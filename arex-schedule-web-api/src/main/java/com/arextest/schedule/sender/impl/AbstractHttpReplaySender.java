@@ -0,0 +1,165 @@
+package com.arextest.schedule.sender.impl;
+
+import com.arextest.model.mock.MockCategoryType;
+import com.arextest.schedule.common.CommonConstant;
+import com.arextest.schedule.model.ReplayActionCaseItem;
+import com.arextest.schedule.model.ReplayActionItem;
+import com.arextest.schedule.model.deploy.ServiceInstance;
+import com.arextest.schedule.sender.ReplaySendResult;
+import com.arextest.schedule.sender.ReplaySenderParameters;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Request building and response parsing shared by the http senders, the subclasses only differ
+ * in how the request goes over the wire.
+ */
+@Slf4j
+abstract class AbstractHttpReplaySender extends AbstractReplaySender {
+
+  @Value("#{'${arex.replay.header.excludes.http}'.split(',')}")
+  List<String> headerExcludes;
+
+  protected boolean isHttpCategory(String category) {
+    return MockCategoryType.SERVLET.getName().equals(category)
+        || MockCategoryType.NETTY_PROVIDER.getName().equals(category);
+  }
+
+  protected ReplaySenderParameters buildSenderParameters(ReplayActionItem replayActionItem,
+      ReplayActionCaseItem caseItem, Map<String, String> headers, ServiceInstance instanceRunner) {
+    String operationName = caseItem.requestPath();
+    if (StringUtils.isEmpty(operationName)) {
+      operationName = replayActionItem.getOperationName();
+    }
+    ReplaySenderParameters senderParameter = new ReplaySenderParameters();
+    senderParameter.setAppId(replayActionItem.getAppId());
+    senderParameter.setConsumeGroup(caseItem.consumeGroup());
+    senderParameter.setFormat(caseItem.requestMessageFormat());
+    senderParameter.setMessage(caseItem.requestMessage());
+    senderParameter.setOperation(operationName);
+    senderParameter.setUrl(instanceRunner.getUrl());
+    senderParameter.setSubEnv(instanceRunner.subEnv());
+    senderParameter.setHeaders(headers);
+    senderParameter.setMethod(caseItem.requestMethod());
+    senderParameter.setRecordId(caseItem.getRecordId());
+    return senderParameter;
+  }
+
+  protected String contactUrl(String baseUrl, String operation) {
+    String result = null;
+    if (StringUtils.endsWith(baseUrl, "/") || StringUtils.startsWith(operation, "/")) {
+      result = baseUrl + operation;
+    } else {
+      result = baseUrl + "/" + operation;
+    }
+    return result;
+  }
+
+  protected HttpHeaders createRequestHeaders(Map<String, String> sourceHeaders, String format) {
+    MediaType contentType = null;
+    HttpHeaders httpHeaders = new HttpHeaders();
+    if (MapUtils.isNotEmpty(sourceHeaders)) {
+      for (Map.Entry<String, String> entry : sourceHeaders.entrySet()) {
+        String key = entry.getKey();
+        if (contentType == null) {
+          contentType = contentType(key, entry.getValue());
+          if (contentType != null) {
+            continue;
+          }
+        }
+        httpHeaders.add(key, entry.getValue());
+      }
+    }
+    if (contentType == null) {
+      contentType = contentType(format);
+    }
+    httpHeaders.setContentType(contentType);
+    return httpHeaders;
+  }
+
+  protected boolean shouldApplyHttpBody(HttpMethod httpMethod) {
+    return httpMethod == HttpMethod.POST || httpMethod == HttpMethod.PUT
+        || httpMethod == HttpMethod.PATCH ||
+        httpMethod == HttpMethod.DELETE;
+  }
+
+  private MediaType contentType(String key, String value) {
+    if (StringUtils.isEmpty(value)) {
+      return null;
+    }
+    if (!StringUtils.equalsIgnoreCase(HttpHeaders.CONTENT_TYPE, key)) {
+      return null;
+    }
+    return MediaType.parseMediaType(value);
+  }
+
+  private MediaType contentType(String format) {
+    if (StringUtils.isEmpty(format)) {
+      return MediaType.APPLICATION_JSON;
+    }
+    return MediaType.parseMediaType(format);
+  }
+
+  protected ReplaySendResult fromHttpResult(Map<?, ?> requestHeaders, String url,
+      ResponseEntity<?> responseEntity) {
+    HttpHeaders responseHeaders = null;
+    Object responseBody = null;
+    if (responseEntity != null) {
+      responseHeaders = responseEntity.getHeaders();
+      responseBody = responseEntity.getBody();
+    }
+    return fromResult(requestHeaders, url, responseHeaders, responseBody);
+  }
+
+  protected ReplaySendResult fromResult(Map<?, ?> requestHeaders, String url,
+      Map<?, ?> responseHeaders,
+      Object responseBody) {
+    String body = encodeResponseAsString(responseBody);
+    LOGGER.info("invoke result url:{} ,request header:{},response header: {}", url,
+        requestHeaders,
+        responseHeaders);
+    if (responseHeaders == null) {
+      LOGGER.error("invoke result url:{} ,request header:{}, body: {}", url,
+          requestHeaders,
+          body
+      );
+      return ReplaySendResult.failed("replay post error,review log find more details", url);
+    }
+    if (!isReplayRequest(requestHeaders)) {
+      return ReplaySendResult.success(StringUtils.EMPTY, StringUtils.EMPTY, url);
+    }
+    String resultId = replayResultId(responseHeaders);
+    if (StringUtils.isEmpty(resultId)) {
+      LOGGER.error("invoke result url:{} ,request header:{},response header: {}, body: {}", url,
+          requestHeaders,
+          responseHeaders,
+          body
+      );
+      return ReplaySendResult.failed(
+          "Could not fetch replay result id from the headers of response", url);
+    }
+    return ReplaySendResult.success(resultId, StringUtils.EMPTY, url);
+  }
+
+  private String replayResultId(Map<?, ?> responseHeaders) {
+    if (MapUtils.isEmpty(responseHeaders)) {
+      return null;
+    }
+    if (responseHeaders instanceof HttpHeaders) {
+      return ((HttpHeaders) responseHeaders).getFirst(CommonConstant.AREX_REPLAY_ID);
+    }
+    Object value = responseHeaders.get(CommonConstant.AREX_REPLAY_ID);
+    if (value instanceof String) {
+      return (String) value;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,282 @@
+package com.arextest.schedule.sender.impl;
+
+import com.arextest.schedule.model.LogType;
+import com.arextest.schedule.model.ReplayActionCaseItem;
+import com.arextest.schedule.model.ReplayActionItem;
+import com.arextest.schedule.model.deploy.ServiceInstance;
+import com.arextest.schedule.sender.ReplaySendResult;
+import com.arextest.schedule.sender.ReplaySenderParameters;
+import com.arextest.schedule.sender.SenderParameters;
+import com.arextest.schedule.service.MetricService;
+import com.arextest.schedule.utils.DecodeUtils;
+import com.arextest.schedule.utils.SSLUtils;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.StatusLine;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+/**
+ * Http sender on a non-blocking client, a case holds no thread while it waits for the target, so
+ * the number of cases in flight is bounded by the send window and the limiter only.
+ * <p>
+ * Disabled by default, when enabled it takes precedence over {@link DefaultHttpReplaySender}.
+ */
+@Slf4j
+@Component
+public final class AsyncHttpReplaySender extends AbstractHttpReplaySender {
+
+  @Resource
+  private MetricService metricService;
+
+  @Value("${arex.replay.sender.http.async.enable:false}")
+  private boolean asyncEnable;
+  @Value("${arex.connect.time.out}")
+  private int connectTimeOut;
+  @Value("${arex.read.time.out}")
+  private int readTimeOut;
+  @Value("${arex.client.https.cert.disable:#{false}}")
+  private boolean disableCertCheck;
+  @Value("${arex.client.pool.maxTotal:512}")
+  private int poolMaxTotal;
+  @Value("${arex.client.pool.maxPerRoute:128}")
+  private int poolMaxPerRoute;
+
+  private CloseableHttpAsyncClient asyncClient;
+
+  @PostConstruct
+  private void initAsyncClient() {
+    if (!asyncEnable) {
+      return;
+    }
+    RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectTimeout(connectTimeOut)
+        .setConnectionRequestTimeout(connectTimeOut)
+        .setSocketTimeout(readTimeOut)
+        .build();
+    HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+        .setDefaultRequestConfig(requestConfig)
+        .setMaxConnTotal(poolMaxTotal)
+        .setMaxConnPerRoute(poolMaxPerRoute);
+    if (disableCertCheck) {
+      builder.setSSLContext(SSLUtils.trustAllSSLContext())
+          .setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE);
+    }
+    asyncClient = builder.build();
+    asyncClient.start();
+  }
+
+  @PreDestroy
+  private void closeAsyncClient() throws IOException {
+    if (asyncClient != null) {
+      asyncClient.close();
+    }
+  }
+
+  @Override
+  public boolean isSupported(String category) {
+    return asyncEnable && isHttpCategory(category);
+  }
+
+  @Override
+  public int getOrder() {
+    return 0;
+  }
+
+  @Override
+  public boolean isAsync() {
+    return true;
+  }
+
+  @Override
+  public boolean send(ReplayActionCaseItem caseItem) {
+    return sendAsync(caseItem).join();
+  }
+
+  @Override
+  public boolean send(ReplayActionCaseItem caseItem, Map<String, String> extraHeaders) {
+    Map<String, String> headers = createHeaders(caseItem);
+    headers.putAll(extraHeaders);
+    before(caseItem);
+    return doSendAsync(caseItem.getParent(), caseItem, headers).join();
+  }
+
+  @Override
+  public CompletableFuture<Boolean> sendAsync(ReplayActionCaseItem caseItem) {
+    Map<String, String> headers = createHeaders(caseItem);
+    before(caseItem);
+    return doSendAsync(caseItem.getParent(), caseItem, headers);
+  }
+
+  private CompletableFuture<Boolean> doSendAsync(ReplayActionItem replayActionItem,
+      ReplayActionCaseItem caseItem, Map<String, String> headers) {
+    headerExcludes.forEach(headers::remove);
+
+    ServiceInstance instanceRunner = selectLoadBalanceInstance(caseItem.getId(),
+        replayActionItem.getTargetInstance());
+    if (instanceRunner == null) {
+      LOGGER.error("selectLoadBalanceInstance failed, caseItem:{}", caseItem);
+      return CompletableFuture.completedFuture(false);
+    }
+    ReplaySenderParameters senderParameter = buildSenderParameters(replayActionItem, caseItem,
+        headers, instanceRunner);
+    String messageId = metricService.generateMessageIdEvent(headers, instanceRunner.getUrl());
+    long startMillis = System.currentTimeMillis();
+    return doInvokeAsync(senderParameter).thenCompose(targetSendResult -> {
+      caseItem.setMessageId(messageId);
+      metricService.recordSendLogEvent(LogType.DO_SEND.getValue(), targetSendResult, caseItem,
+          System.currentTimeMillis() - startMillis);
+      caseItem.setSendErrorMessage(targetSendResult.getRemark());
+      caseItem.setTargetResultId(targetSendResult.getTraceId());
+      caseItem.setSendStatus(targetSendResult.getStatusType().getValue());
+      ServiceInstance sourceRunner = selectLoadBalanceInstance(caseItem.getId(),
+          replayActionItem.getSourceInstance());
+      if (sourceRunner == null) {
+        return CompletableFuture.completedFuture(targetSendResult.success());
+      }
+      // the sourceHost sending
+      senderParameter.setUrl(sourceRunner.getUrl());
+      return doInvokeAsync(senderParameter).thenApply(sourceSendResult -> {
+        caseItem.setSourceResultId(sourceSendResult.getTraceId());
+        caseItem.setSendStatus(sourceSendResult.getStatusType().getValue());
+        caseItem.setSendErrorMessage(targetSendResult.getRemark());
+        return sourceSendResult.success() && targetSendResult.success();
+      });
+    });
+  }
+
+  /**
+   * The returned future never completes exceptionally, errors are mapped to a failed result like
+   * the blocking sender does.
+   */
+  private CompletableFuture<ReplaySendResult> doInvokeAsync(SenderParameters senderParameters) {
+    String method = senderParameters.getMethod();
+    HttpMethod httpMethod = HttpMethod.resolve(method);
+
+    if (httpMethod == null) {
+      return CompletableFuture.completedFuture(
+          ReplaySendResult.failed("not found request method:" + method));
+    }
+
+    HttpHeaders httpHeaders = createRequestHeaders(senderParameters.getHeaders(),
+        senderParameters.getFormat());
+    String fullUrl = contactUrl(senderParameters.getUrl(), senderParameters.getOperation());
+    CompletableFuture<ReplaySendResult> future = new CompletableFuture<>();
+    try {
+      RequestBuilder requestBuilder = RequestBuilder.create(httpMethod.name()).setUri(fullUrl);
+      httpHeaders.forEach((name, values) -> {
+        // the client computes the framing of the entity itself
+        if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+            && !HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+          values.forEach(value -> requestBuilder.addHeader(name, value));
+        }
+      });
+      boolean binaryResponse = false;
+      if (shouldApplyHttpBody(httpMethod)) {
+        Object decodeMessage = DecodeUtils.decode(senderParameters.getMessage());
+        ContentType contentType = ContentType.parse(String.valueOf(httpHeaders.getContentType()));
+        if (decodeMessage instanceof byte[]) {
+          binaryResponse = true;
+          requestBuilder.setEntity(new ByteArrayEntity((byte[]) decodeMessage, contentType));
+        } else {
+          requestBuilder.setEntity(new StringEntity(String.valueOf(decodeMessage),
+              contentType.getCharset() == null
+                  ? contentType.withCharset(StandardCharsets.UTF_8) : contentType));
+        }
+      }
+      HttpUriRequest request = requestBuilder.build();
+      asyncClient.execute(request,
+          new ResultCallback(future, method, fullUrl, httpHeaders, binaryResponse));
+    } catch (Throwable throwable) {
+      LOGGER.error("http {} , url: {} ,error: {}", method, fullUrl, throwable.getMessage(),
+          throwable);
+      future.complete(ReplaySendResult.failed(throwable.getMessage(), fullUrl));
+    }
+    return future;
+  }
+
+  final class ResultCallback implements FutureCallback<HttpResponse> {
+
+    private final CompletableFuture<ReplaySendResult> future;
+    private final String method;
+    private final String fullUrl;
+    private final HttpHeaders requestHeaders;
+    private final boolean binaryResponse;
+
+    ResultCallback(CompletableFuture<ReplaySendResult> future, String method,
+        String fullUrl, HttpHeaders requestHeaders, boolean binaryResponse) {
+      this.future = future;
+      this.method = method;
+      this.fullUrl = fullUrl;
+      this.requestHeaders = requestHeaders;
+      this.binaryResponse = binaryResponse;
+    }
+
+    @Override
+    public void completed(HttpResponse response) {
+      try {
+        StatusLine statusLine = response.getStatusLine();
+        if (statusLine.getStatusCode() < HttpStatus.SC_OK
+            || statusLine.getStatusCode() >= HttpStatus.SC_MULTIPLE_CHOICES) {
+          // the blocking sender fails on an error status as well
+          EntityUtils.consumeQuietly(response.getEntity());
+          LOGGER.error("http {} , url: {} ,status: {}", method, fullUrl, statusLine);
+          future.complete(ReplaySendResult.failed(statusLine.getStatusCode() + " "
+              + statusLine.getReasonPhrase(), fullUrl));
+          return;
+        }
+        HttpHeaders responseHeaders = new HttpHeaders();
+        for (Header header : response.getAllHeaders()) {
+          responseHeaders.add(header.getName(), header.getValue());
+        }
+        Object responseBody = null;
+        if (response.getEntity() != null) {
+          responseBody = binaryResponse ? EntityUtils.toByteArray(response.getEntity())
+              : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        }
+        future.complete(fromResult(requestHeaders, fullUrl, responseHeaders, responseBody));
+      } catch (Throwable throwable) {
+        failed(throwable);
+      }
+    }
+
+    @Override
+    public void failed(Exception ex) {
+      failed((Throwable) ex);
+    }
+
+    private void failed(Throwable throwable) {
+      LOGGER.error("http {} , url: {} ,error: {}", method, fullUrl, throwable.getMessage(),
+          throwable);
+      future.complete(ReplaySendResult.failed(throwable.getMessage(), fullUrl));
+    }
+
+    @Override
+    public void cancelled() {
+      future.complete(ReplaySendResult.failed("request cancelled", fullUrl));
+    }
+  }
+}
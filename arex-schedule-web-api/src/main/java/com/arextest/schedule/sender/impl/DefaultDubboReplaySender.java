@@ -11,9 +11,13 @@ import com.arextest.schedule.model.ReplayActionCaseItem;
 import com.arextest.schedule.model.deploy.ServiceInstance;
 import com.arextest.schedule.model.invocation.DubboInvocation;
 import com.arextest.schedule.sender.ReplaySendResult;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -33,10 +37,15 @@ public class DefaultDubboReplaySender extends AbstractReplaySender {
 
   private static final String VERSION = "version";
   private static final String GROUP = "group";
+  private static final int PARAMETER_DESCRIPTOR_CACHE_SIZE = 4096;
 
   private final List<String> headerExcludes;
   private final List<ReplayExtensionInvoker> replayExtensionInvokers;
 
+  // the parameter types of an operation are the same for all of its cases, parse them only once
+  private final Cache<String, ParameterDescriptor> parameterDescriptorCache =
+      CacheBuilder.newBuilder().maximumSize(PARAMETER_DESCRIPTOR_CACHE_SIZE).build();
+
   @Override
   public boolean isSupported(String categoryType) {
     return MockCategoryType.DUBBO_PROVIDER.getName().equals(categoryType);
@@ -61,6 +70,44 @@ public class DefaultDubboReplaySender extends AbstractReplaySender {
     return doSend(caseItem, headers);
   }
 
+  @Override
+  public boolean isAsync() {
+    return CollectionUtils.isNotEmpty(replayExtensionInvokers)
+        && replayExtensionInvokers.stream().anyMatch(ReplayExtensionInvoker::isAsyncSupported);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> sendAsync(ReplayActionCaseItem caseItem) {
+    before(caseItem);
+    Map<String, String> headers = createHeaders(caseItem);
+    DubboInvocation dubboInvocation = generateDubboInvocation(caseItem, headers);
+    LOGGER.info("dubboInvocation:{}", dubboInvocation);
+    if (dubboInvocation == null) {
+      return CompletableFuture.completedFuture(false);
+    }
+    ReplayExtensionInvoker invoker = findInvoker(caseItem);
+    if (invoker == null) {
+      LOGGER.error("replayInvokeResult is null, caseItem:{}", caseItem);
+      return CompletableFuture.completedFuture(false);
+    }
+    dubboInvocation.setInvoker(invoker);
+    if (!invoker.isAsyncSupported()) {
+      return CompletableFuture.completedFuture(
+          handleResult(caseItem, headers, dubboInvocation, invoker.invoke(dubboInvocation)));
+    }
+    return invoker.invokeAsync(dubboInvocation)
+        .handle((replayInvokeResult, throwable) -> {
+          if (throwable != null) {
+            ReplayInvokeResult failedResult = new ReplayInvokeResult();
+            failedResult.setErrorMsg(throwable.getMessage());
+            failedResult.setException(throwable instanceof Exception ? (Exception) throwable
+                : new RuntimeException(throwable));
+            replayInvokeResult = failedResult;
+          }
+          return handleResult(caseItem, headers, dubboInvocation, replayInvokeResult);
+        });
+  }
+
   DubboInvocation generateDubboInvocation(ReplayActionCaseItem caseItem,
       Map<String, String> headers) {
 
@@ -81,7 +128,8 @@ public class DefaultDubboReplaySender extends AbstractReplaySender {
     }
     String url = appendVersionAndGroup(instanceRunner.getUrl(), headers);
 
-    DubboParameters dubboParameters = getDubboParameters(caseItem);
+    DubboParameters dubboParameters = getDubboParameters(caseItem.getParent().getOperationName(),
+        caseItem);
     return new DubboInvocation(url, headers, interfaceNameAndMethod.left,
         interfaceNameAndMethod.right,
         dubboParameters.getParameterTypes(), dubboParameters.getParameters());
@@ -99,23 +147,35 @@ public class DefaultDubboReplaySender extends AbstractReplaySender {
 
   private boolean doSend(ReplayActionCaseItem caseItem, Map<String, String> headers) {
 
-    ReplayInvokeResult replayInvokeResult = null;
-
     DubboInvocation dubboInvocation = generateDubboInvocation(caseItem, headers);
     LOGGER.info("dubboInvocation:{}", dubboInvocation);
     if (dubboInvocation == null) {
       return false;
     }
+    ReplayInvokeResult replayInvokeResult = null;
+    ReplayExtensionInvoker invoker = findInvoker(caseItem);
+    if (invoker != null) {
+      dubboInvocation.setInvoker(invoker);
+      replayInvokeResult = invoker.invoke(dubboInvocation);
+    }
+    return handleResult(caseItem, headers, dubboInvocation, replayInvokeResult);
+  }
+
+  private ReplayExtensionInvoker findInvoker(ReplayActionCaseItem caseItem) {
     if (CollectionUtils.isEmpty(replayExtensionInvokers)) {
       LOGGER.error("no invokers");
+      return null;
     }
     for (ReplayExtensionInvoker invoker : replayExtensionInvokers) {
       if (invoker.isSupported(caseItem.getCaseType())) {
-        dubboInvocation.setInvoker(invoker);
-        replayInvokeResult = invoker.invoke(dubboInvocation);
-        break;
+        return invoker;
       }
     }
+    return null;
+  }
+
+  private boolean handleResult(ReplayActionCaseItem caseItem, Map<String, String> headers,
+      DubboInvocation dubboInvocation, ReplayInvokeResult replayInvokeResult) {
     if (replayInvokeResult == null) {
       LOGGER.error("replayInvokeResult is null, caseItem:{}", caseItem);
       return false;
@@ -174,16 +234,33 @@ public class DefaultDubboReplaySender extends AbstractReplaySender {
         operationName.substring(lastDotIndex + 1));
   }
 
-  private DubboParameters getDubboParameters(ReplayActionCaseItem caseItem) {
+  private DubboParameters getDubboParameters(String operationName,
+      ReplayActionCaseItem caseItem) {
     String type = caseItem.getTargetRequest().getType();
     String body = caseItem.getTargetRequest().getBody();
+    ParameterDescriptor descriptor = getParameterDescriptor(operationName, type);
 
     DubboParameters dubboParameters = new DubboParameters();
-    dubboParameters.setParameterTypes(toParameterTypes(type));
-    dubboParameters.setParameters(toParameters(body, type));
+    // invokers own the list they get, hand out a copy of the cached one
+    dubboParameters.setParameterTypes(new ArrayList<>(descriptor.getParameterTypes()));
+    dubboParameters.setParameters(
+        toParameters(body, descriptor.isTyped(), descriptor.isArrayBody()));
     return dubboParameters;
   }
 
+  private ParameterDescriptor getParameterDescriptor(String operationName, String type) {
+    String signature = operationName + "(" + type + ")";
+    ParameterDescriptor descriptor = parameterDescriptorCache.getIfPresent(signature);
+    if (descriptor == null) {
+      descriptor = new ParameterDescriptor(
+          Collections.unmodifiableList(toParameterTypes(type)),
+          StringUtils.isNotEmpty(type),
+          StringUtils.startsWith(type, CommonConstant.JSON_ARRAY_START));
+      parameterDescriptorCache.put(signature, descriptor);
+    }
+    return descriptor;
+  }
+
   public static List<String> toParameterTypes(String type) {
     List<String> parameterTypes = new ArrayList<>();
     if (StringUtils.isNotEmpty(type)) {
@@ -201,11 +278,16 @@ public class DefaultDubboReplaySender extends AbstractReplaySender {
   }
 
   public static List<Object> toParameters(String body, String type) {
+    return toParameters(body, StringUtils.isNotEmpty(type),
+        StringUtils.startsWith(type, CommonConstant.JSON_ARRAY_START));
+  }
+
+  private static List<Object> toParameters(String body, boolean typed, boolean arrayBody) {
     List<Object> parameters = new ArrayList<>();
-    if (StringUtils.isNotEmpty(body) && StringUtils.isNotEmpty(type)) {
+    if (StringUtils.isNotEmpty(body) && typed) {
       JSONArray array = null;
       //type starts with "[", cuz single-object body could start with "["
-      if (type.startsWith(CommonConstant.JSON_ARRAY_START)) {
+      if (arrayBody) {
         array = tryParseJsonArray(body);
       }
       if (array == null) {
@@ -251,6 +333,14 @@ public class DefaultDubboReplaySender extends AbstractReplaySender {
     }
   }
 
+  @Data
+  private static class ParameterDescriptor {
+
+    private final List<String> parameterTypes;
+    private final boolean typed;
+    private final boolean arrayBody;
+  }
+
   @Data
   private static class DubboParameters {
 
@@ -6,11 +6,23 @@ import com.arextest.model.response.ResponseStatusType;
 import com.arextest.schedule.client.HttpWepServiceApiClient;
 import com.arextest.schedule.model.CaseProvider;
 import com.arextest.schedule.model.ReplayActionCaseItem;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+@Slf4j
 @Component
 public final class MockCachePreLoader {
   @Value("${arex.storage.cacheLoad.url}")
@@ -19,6 +31,29 @@ public final class MockCachePreLoader {
   private String cacheRemoveUrl;
   @Resource
   private HttpWepServiceApiClient httpWepServiceApiClient;
+  @Resource
+  private ExecutorService mockCachePreloadExecutorService;
+
+  /**
+   * number of cases ahead of the send cursor whose mock cache is loaded asynchronously, 0 loads
+   * each cache synchronously right before its case is sent.
+   */
+  @Getter
+  @Value("${arex.schedule.mockCache.prefetch.size:0}")
+  private int prefetchSize;
+  @Value("${arex.schedule.mockCache.prefetch.waitMillis:5000}")
+  private long prefetchWaitMillis;
+
+  // prefetches of cases that are never sent (e.g. interrupted plans) expire on their own
+  private Cache<String, CompletableFuture<Boolean>> prefetched;
+
+  @PostConstruct
+  private void initPrefetched() {
+    prefetched = CacheBuilder.newBuilder()
+        .maximumSize(Math.max(prefetchSize, 1) * 16L)
+        .expireAfterWrite(10, TimeUnit.MINUTES)
+        .build();
+  }
 
   public void removeCache(String replayId) {
     QueryMockCacheRequestType mockCacheRequestType = new QueryMockCacheRequestType();
@@ -27,7 +62,51 @@ public final class MockCachePreLoader {
         QueryMockCacheResponseType.class);
   }
 
+  /**
+   * Start loading the mock caches of the given cases without waiting for them, the next
+   * {@link #prepareCache} of each case picks up the result.
+   */
+  public void prefetchCache(List<ReplayActionCaseItem> caseItems) {
+    if (prefetchSize <= 0) {
+      return;
+    }
+    for (ReplayActionCaseItem caseItem : caseItems) {
+      String caseId = caseItem.getId();
+      if (caseId == null || prefetched.getIfPresent(caseId) != null) {
+        continue;
+      }
+      try {
+        prefetched.put(caseId, CompletableFuture.supplyAsync(() -> loadCache(caseItem),
+            mockCachePreloadExecutorService));
+      } catch (RejectedExecutionException e) {
+        LOGGER.info("mock cache prefetch rejected, case: {}", caseId);
+        return;
+      }
+    }
+  }
+
   public boolean prepareCache(ReplayActionCaseItem caseItem) {
+    CompletableFuture<Boolean> future =
+        caseItem.getId() == null ? null : prefetched.getIfPresent(caseItem.getId());
+    if (future != null) {
+      prefetched.invalidate(caseItem.getId());
+      try {
+        if (Boolean.TRUE.equals(future.get(prefetchWaitMillis, TimeUnit.MILLISECONDS))) {
+          return true;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      } catch (TimeoutException e) {
+        LOGGER.warn("mock cache prefetch timeout, case: {}", caseItem.getId());
+      } catch (Exception e) {
+        LOGGER.warn("mock cache prefetch error: {}", e.getMessage(), e);
+      }
+    }
+    return loadCache(caseItem);
+  }
+
+  private boolean loadCache(ReplayActionCaseItem caseItem) {
     String recordId = caseItem.getRecordId();
     QueryMockCacheRequestType request = new QueryMockCacheRequestType();
     request.setRecordId(recordId);
@@ -50,4 +129,4 @@ public final class MockCachePreLoader {
         .map(code -> code.equals(0))
         .orElse(false);
   }
-}
\ No newline at end of file
+}
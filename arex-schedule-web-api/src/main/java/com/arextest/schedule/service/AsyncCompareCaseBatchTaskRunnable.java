@@ -0,0 +1,29 @@
+package com.arextest.schedule.service;
+
+import com.arextest.common.runnable.AbstractContextWithTraceRunnable;
+import com.arextest.schedule.comparer.ReplayResultComparer;
+import com.arextest.schedule.model.ReplayActionCaseItem;
+import java.util.List;
+
+/**
+ * Compares the ready cases of one action together, their compare sources are loaded in one
+ * batch.
+ */
+public class AsyncCompareCaseBatchTaskRunnable extends AbstractContextWithTraceRunnable {
+
+  private final ReplayResultComparer replayResultComparer;
+
+  private final List<ReplayActionCaseItem> caseItems;
+
+  AsyncCompareCaseBatchTaskRunnable(
+      ReplayResultComparer replayResultComparer,
+      List<ReplayActionCaseItem> caseItems) {
+    this.replayResultComparer = replayResultComparer;
+    this.caseItems = caseItems;
+  }
+
+  @Override
+  protected void doWithContextRunning() {
+    replayResultComparer.compare(caseItems, true);
+  }
+}
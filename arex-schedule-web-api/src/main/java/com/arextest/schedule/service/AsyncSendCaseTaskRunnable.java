@@ -3,6 +3,7 @@ package com.arextest.schedule.service;
 import static com.arextest.schedule.common.CommonConstant.DEFAULT_COUNT;
 
 import com.arextest.common.runnable.AbstractContextWithTraceRunnable;
+import com.arextest.schedule.common.SendInFlightWindow;
 import com.arextest.schedule.common.SendSemaphoreLimiter;
 import com.arextest.schedule.mdc.AbstractTracedRunnable;
 import com.arextest.schedule.mdc.MDCTracer;
@@ -11,7 +12,8 @@ import com.arextest.schedule.model.ExecutionStatus;
 import com.arextest.schedule.model.LogType;
 import com.arextest.schedule.model.ReplayActionCaseItem;
 import com.arextest.schedule.sender.ReplaySender;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -26,10 +28,14 @@ final class AsyncSendCaseTaskRunnable extends AbstractContextWithTraceRunnable {
   private transient final ReplayCaseTransmitServiceImpl transmitService;
   private transient ReplaySender replaySender;
   private transient ReplayActionCaseItem caseItem;
-  private transient CountDownLatch groupSentLatch;
+  private transient SendInFlightWindow sendWindow;
   private transient SendSemaphoreLimiter limiter;
   private transient ExecutionStatus executionStatus;
   private transient MetricService metricService;
+  // runs the completion of async senders, off the callback thread of their http client
+  private transient Executor completionExecutor;
+  // when the target answered, the latency sample leaves out the result handling after it
+  private transient volatile long sentMillis;
 
   AsyncSendCaseTaskRunnable(ReplayCaseTransmitServiceImpl transmitService) {
     this.transmitService = transmitService;
@@ -37,8 +43,8 @@ final class AsyncSendCaseTaskRunnable extends AbstractContextWithTraceRunnable {
 
   @Override
   protected void doWithContextRunning() {
-    // TODO: use send time decrease or increase the sendLimiter of replay case
     boolean success = false;
+    boolean completeLater = false;
     Throwable t = null;
     try {
 
@@ -57,7 +63,15 @@ final class AsyncSendCaseTaskRunnable extends AbstractContextWithTraceRunnable {
       MDCTracer.addDetailId(caseItem.getId());
       long caseExecutionStartMillis = System.currentTimeMillis();
       caseItem.setExecutionStartMillis(caseExecutionStartMillis);
+      if (this.replaySender.isAsync() && this.completionExecutor != null) {
+        this.replaySender.sendAsync(caseItem)
+            .whenComplete((result, error) -> sentMillis = System.currentTimeMillis())
+            .whenCompleteAsync(this::onAsyncSent, this.completionExecutor);
+        completeLater = true;
+        return;
+      }
       success = this.replaySender.send(caseItem);
+      sentMillis = System.currentTimeMillis();
       LOGGER.info("async run sender Id: {} , result:{}", caseItem.getId(), success);
       transmitService.updateSendResult(caseItem, success ? CaseSendStatusType.SUCCESS :
           CaseSendStatusType.EXCEPTION_FAILED);
@@ -67,17 +81,53 @@ final class AsyncSendCaseTaskRunnable extends AbstractContextWithTraceRunnable {
           throwable.getMessage(), throwable);
       transmitService.updateSendResult(caseItem, CaseSendStatusType.EXCEPTION_FAILED);
     } finally {
-      groupSentLatch.countDown();
-      limiter.release(success);
-      caseItem.buildParentErrorMessage(
-          t != null ? t.getMessage() : CaseSendStatusType.EXCEPTION_FAILED.name()
-      );
-      if (!success) {
-        metricService.recordCountEvent(LogType.CASE_EXCEPTION_NUMBER.getValue(),
-            caseItem.getParent().getPlanId(),
-            caseItem.getParent().getAppId(), DEFAULT_COUNT);
+      if (completeLater) {
+        MDCTracer.removeDetailId();
+      } else {
+        afterSend(success, t);
       }
-      MDCTracer.removeDetailId();
     }
   }
-}
\ No newline at end of file
+
+  private void onAsyncSent(Boolean result, Throwable error) {
+    // the timestamp stage wraps the send error
+    if (error instanceof CompletionException && error.getCause() != null) {
+      error = error.getCause();
+    }
+    boolean success = Boolean.TRUE.equals(result);
+    Throwable t = error;
+    MDCTracer.addDetailId(caseItem.getId());
+    try {
+      if (error != null) {
+        LOGGER.error("async run sender Id: {} , error: {}", caseItem.getId(),
+            error.getMessage(), error);
+      } else {
+        LOGGER.info("async run sender Id: {} , result:{}", caseItem.getId(), success);
+      }
+      transmitService.updateSendResult(caseItem, success ? CaseSendStatusType.SUCCESS :
+          CaseSendStatusType.EXCEPTION_FAILED);
+    } catch (Throwable throwable) {
+      t = throwable;
+      LOGGER.error("async run sender Id: {} , error: {}", caseItem.getId(),
+          throwable.getMessage(), throwable);
+    } finally {
+      afterSend(success, t);
+    }
+  }
+
+  private void afterSend(boolean success, Throwable t) {
+    sendWindow.exit();
+    long startMillis = caseItem.getExecutionStartMillis();
+    limiter.release(success,
+        startMillis > 0 && sentMillis > 0 ? sentMillis - startMillis : -1);
+    caseItem.buildParentErrorMessage(
+        t != null ? t.getMessage() : CaseSendStatusType.EXCEPTION_FAILED.name()
+    );
+    if (!success) {
+      metricService.recordCountEvent(LogType.CASE_EXCEPTION_NUMBER.getValue(),
+          caseItem.getParent().getPlanId(),
+          caseItem.getParent().getAppId(), DEFAULT_COUNT);
+    }
+    MDCTracer.removeDetailId();
+  }
+}
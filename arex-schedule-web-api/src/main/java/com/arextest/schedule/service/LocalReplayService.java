@@ -7,6 +7,7 @@ import com.arextest.schedule.common.CommonConstant;
 import com.arextest.schedule.common.JsonUtils;
 import com.arextest.schedule.common.SendLimiter;
 import com.arextest.schedule.common.SendRedisLimiter;
+import com.arextest.schedule.common.SendSemaphoreLimiter;
 import com.arextest.schedule.comparer.CompareConfigService;
 import com.arextest.schedule.dao.mongodb.ReplayActionCaseItemRepository;
 import com.arextest.schedule.dao.mongodb.ReplayPlanActionRepository;
@@ -44,6 +45,9 @@ import com.arextest.schedule.sender.ReplaySenderParameters;
 import com.arextest.schedule.sender.impl.MockCachePreLoader;
 import com.arextest.schedule.utils.DecodeUtils;
 import com.arextest.schedule.utils.ReplayParentBinder;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -54,13 +58,16 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import javax.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -106,6 +113,24 @@ public class LocalReplayService {
   @Resource
   private PlanExecutionMonitor planExecutionMonitorImpl;
 
+  /**
+   * lease the send permits of a plan from redis, so all nodes together keep to the plan qps
+   */
+  @Value("${arex.schedule.localReplay.limiter.distributed:false}")
+  private boolean distributedLimiter;
+
+  /**
+   * the leased limiter keeps its permits and pending results, one instance per plan on each node
+   */
+  private final Cache<String, SendRedisLimiter> sendLimiterCache = CacheBuilder.newBuilder()
+      .expireAfterAccess(10, TimeUnit.MINUTES)
+      .removalListener((RemovalListener<String, SendRedisLimiter>) notification -> {
+        if (notification.getValue() != null) {
+          notification.getValue().flush();
+        }
+      })
+      .build();
+
   public CommonResponse queryReplayCaseId(BuildReplayPlanRequest request) {
     final QueryReplayCaseIdResponse response = new QueryReplayCaseIdResponse();
     Pair<ReplayPlan, CommonResponse> pair = buildReplayPlan(request);
@@ -149,7 +174,7 @@ public class LocalReplayService {
     ReplayPlan replayPlan = replayPlanRepository.query(request.getPlanId());
     restorePlanCache(replayPlan);
 
-    SendLimiter sendLimiter = new SendRedisLimiter(replayPlan, redisCacheProvider);
+    SendLimiter sendLimiter = sendLimiter(replayPlan);
     ReplayActionCaseItem caseItem = restoreCase(request.getCaseId(), null);
     if (caseItem != null) {
       if (sendLimiter.failBreak()) {
@@ -160,6 +185,7 @@ public class LocalReplayService {
         replayCaseTransmitService.updateSendResult(caseItem, CaseSendStatusType.CANCELED);
         return false;
       }
+      sendLimiter.acquire();
     }
     return mockCachePreLoader.prepareCache(caseItem);
   }
@@ -177,10 +203,9 @@ public class LocalReplayService {
     ReplayPlan replayPlan = replayPlanRepository.query(planId);
 
 
-    List<ReplayActionCaseItem> failedCaseList = replayActionCaseItemRepository.failedCaseList(
-        planId, request.getPlanItemId());
-
-    if (CollectionUtils.isEmpty(failedCaseList)) {
+    replayActionCaseItemRepository.flushSendResults();
+    replayActionCaseItemRepository.flushCompareStatuses();
+    if (!replayActionCaseItemRepository.hasFailedCase(planId, request.getPlanItemId())) {
       progressEvent.onReplayPlanReRunException(replayPlan);
       return CommonResponse.badResponse("No failed case found");
     }
@@ -191,11 +216,12 @@ public class LocalReplayService {
     }
     replayPlan.setReRun(Boolean.TRUE);
     cacheReplayPlan(replayPlan);
+    // writes the results left from the last run, the rerun starts with a new limiter
+    sendLimiterCache.invalidate(planId);
 
     planExecutionMonitorImpl.register(replayPlan);
     progressEvent.onReplayPlanReRun(replayPlan);
-    progressEvent.onUpdateFailedCases(replayPlan, failedCaseList);
-    planConsumePrepareService.updateFailedActionAndCase(replayPlan, failedCaseList);
+    planConsumePrepareService.updateFailedActionAndCase(replayPlan, request.getPlanItemId());
     if (CollectionUtils.isEmpty(replayPlan.getReplayActionItemList())) {
       throw new RuntimeException("no replayActionItem!");
     }
@@ -210,7 +236,7 @@ public class LocalReplayService {
     ReplayPlan replayPlan = replayPlanRepository.query(request.getPlanId());
     restorePlanCache(replayPlan);
 
-    SendLimiter sendLimiter = new SendRedisLimiter(replayPlan, redisCacheProvider);
+    SendLimiter sendLimiter = sendLimiter(replayPlan);
     sendLimiter.release(request.getSendStatusType() == CaseSendStatusType.SUCCESS.getValue());
 
     ReplayActionCaseItem caseItem = restoreCase(request.getCaseId(), request.getReplayId());
@@ -219,6 +245,26 @@ public class LocalReplayService {
         CaseSendStatusType.of(request.getSendStatusType()));
   }
 
+  private SendLimiter sendLimiter(ReplayPlan replayPlan) {
+    if (!distributedLimiter) {
+      return new SendRedisLimiter(replayPlan, redisCacheProvider);
+    }
+    try {
+      SendRedisLimiter sendLimiter = sendLimiterCache.get(replayPlan.getId(), () -> {
+        int permitsPerSecond = Optional.ofNullable(replayPlan.getReplaySendMaxQps())
+            .filter(qps -> qps > 0).orElse(SendSemaphoreLimiter.DEFAULT_MAX_RATE)
+            * Math.max(replayPlan.getMinInstanceCount(), 1);
+        return new SendRedisLimiter(replayPlan, redisCacheProvider, permitsPerSecond);
+      });
+      // the rerun on another node does not invalidate this cache
+      sendLimiter.setReplayPlan(replayPlan);
+      return sendLimiter;
+    } catch (ExecutionException e) {
+      LOGGER.error("create send limiter error, plan id: {}", replayPlan.getId(), e);
+      return new SendRedisLimiter(replayPlan, redisCacheProvider);
+    }
+  }
+
   private ReplayActionCaseItem restoreCase(String caseId, String replayId) {
     ReplayActionCaseItem caseItem = replayActionCaseItemRepository.queryById(caseId);
     caseItem.setTargetResultId(replayId);
@@ -487,9 +533,7 @@ public class LocalReplayService {
         ReplayActionCaseItem lastItem =
             CollectionUtils.isNotEmpty(caseItems) ? caseItems.get(caseItems.size() - 1) : null;
         caseItems = replayActionCaseItemRepository.waitingSendList(replayPlan.getId(),
-            CommonConstant.MAX_PAGE_SIZE,
-            executionContext.getContextCaseQuery(),
-            Optional.ofNullable(lastItem).map(ReplayActionCaseItem::getRecordTime).orElse(null));
+            CommonConstant.MAX_PAGE_SIZE, executionContext.getContextCaseQuery(), lastItem);
 
         if (CollectionUtils.isEmpty(caseItems)) {
           break;
@@ -0,0 +1,240 @@
+package com.arextest.schedule.service;
+
+import com.arextest.common.cache.CacheProvider;
+import com.arextest.schedule.model.ReplayPlan;
+import com.google.common.base.Splitter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Admits plans onto the preload executor within a global and a per app quota of running plans.
+ * The order is start-time fair queuing: a queued plan is tagged with the virtual time or, if
+ * later, the point where its app's previous plan ends, a plan costing 1/weight of virtual time.
+ * When a slot frees up the lowest tag goes next, so the plans of one app can not hold every sender
+ * thread while the other apps wait, and an app that was idle gains no credit for it.
+ * <p>
+ * The queue is kept per instance, a plan waits on the instance that received it.
+ */
+@Slf4j
+@Service
+public class PlanAdmissionService {
+
+  private static final int DEFAULT_WEIGHT = 1;
+
+  @Resource
+  private ExecutorService preloadExecutorService;
+  @Resource
+  private CacheProvider redisCacheProvider;
+
+  @Value("${arex.schedule.admission.enable:true}")
+  private boolean enable;
+  @Value("${arex.schedule.admission.maxRunningPlans:16}")
+  private int maxRunningPlans;
+  /**
+   * 0 leaves the plans of an app bounded by maxRunningPlans only
+   */
+  @Value("${arex.schedule.admission.maxRunningPlansPerApp:0}")
+  private int maxRunningPlansPerApp;
+  /**
+   * weights of apps in the form of appId:weight,appId:weight, an app not listed weighs 1
+   */
+  @Value("${arex.schedule.admission.appWeights:}")
+  private String appWeights;
+
+  private Map<String, Integer> weights = Collections.emptyMap();
+  private final Map<String, Deque<QueuedPlan>> queuedPlans = new LinkedHashMap<>();
+  private final Map<String, Integer> runningPlans = new HashMap<>();
+  // the virtual time where the last tagged plan of each app ends
+  private final Map<String, Double> appFinishTags = new HashMap<>();
+  private double virtualTime;
+  private int runningTotal;
+  private long sequence;
+
+  @PostConstruct
+  private void init() {
+    if (StringUtils.isBlank(appWeights)) {
+      return;
+    }
+    Map<String, Integer> parsed = new HashMap<>();
+    Splitter.on(',').omitEmptyStrings().trimResults().withKeyValueSeparator(':')
+        .split(appWeights)
+        .forEach((appId, weight) -> parsed.put(appId, Math.max(Integer.parseInt(weight), 1)));
+    weights = parsed;
+  }
+
+  /**
+   * Run the task of the plan now if the quotas allow, otherwise queue it until a slot frees up.
+   */
+  public void submit(ReplayPlan replayPlan, Runnable task) {
+    if (!enable) {
+      preloadExecutorService.execute(task);
+      return;
+    }
+    List<QueuedPlan> admitted;
+    synchronized (this) {
+      String appId = replayPlan.getAppId();
+      double startTag = Math.max(virtualTime, appFinishTags.getOrDefault(appId, 0D));
+      appFinishTags.put(appId, startTag + 1D / weights.getOrDefault(appId, DEFAULT_WEIGHT));
+      queuedPlans.computeIfAbsent(appId, key -> new ArrayDeque<>())
+          .add(new QueuedPlan(replayPlan.getId(), appId, task, startTag, sequence++));
+      admitted = admit();
+    }
+    if (admitted.isEmpty()) {
+      LOGGER.info("plan queued, plan id: {}, app id: {}, position: {}", replayPlan.getId(),
+          replayPlan.getAppId(), queuePosition(replayPlan.getId()));
+    }
+    admitted.forEach(this::start);
+  }
+
+  /**
+   * Drop the plan if it is still waiting on this instance, a plan already running is stopped by
+   * its stop key.
+   *
+   * @return true if the plan was waiting
+   */
+  public boolean cancel(String planId) {
+    List<QueuedPlan> admitted;
+    boolean removed = false;
+    synchronized (this) {
+      for (Deque<QueuedPlan> queue : queuedPlans.values()) {
+        removed |= queue.removeIf(plan -> plan.getPlanId().equals(planId));
+      }
+      admitted = admit();
+    }
+    if (removed) {
+      LOGGER.info("queued plan canceled, plan id: {}", planId);
+    }
+    admitted.forEach(this::start);
+    return removed;
+  }
+
+  /**
+   * The tags are fixed when a plan is queued, so this is the order admit() follows, apart from
+   * plans held back by the per app quota.
+   *
+   * @return the position of the plan in the admission order starting from 1, 0 if the plan is not
+   * waiting
+   */
+  public synchronized int queuePosition(String planId) {
+    Map<String, Deque<QueuedPlan>> queues = new HashMap<>();
+    queuedPlans.forEach((appId, queue) -> queues.put(appId, new ArrayDeque<>(queue)));
+    int position = 0;
+    QueuedPlan next;
+    while ((next = pickNext(queues, false)) != null) {
+      position++;
+      if (next.getPlanId().equals(planId)) {
+        return position;
+      }
+      queues.get(next.getAppId()).poll();
+    }
+    return 0;
+  }
+
+  private void start(QueuedPlan plan) {
+    // stopped on another instance while it was waiting here
+    if (isStopped(plan.getPlanId())) {
+      LOGGER.info("skip stopped plan, plan id: {}", plan.getPlanId());
+      release(plan);
+      return;
+    }
+    try {
+      preloadExecutorService.execute(() -> {
+        try {
+          plan.getTask().run();
+        } finally {
+          release(plan);
+        }
+      });
+    } catch (Throwable throwable) {
+      LOGGER.error("start plan error, plan id: {}", plan.getPlanId(), throwable);
+      release(plan);
+    }
+  }
+
+  private boolean isStopped(String planId) {
+    try {
+      return redisCacheProvider.get(PlanProduceService.buildStopPlanRedisKey(planId)) != null;
+    } catch (Exception e) {
+      LOGGER.error("check plan stop key error, plan id: {}", planId, e);
+      return false;
+    }
+  }
+
+  private void release(QueuedPlan plan) {
+    List<QueuedPlan> admitted;
+    synchronized (this) {
+      runningTotal--;
+      runningPlans.computeIfPresent(plan.getAppId(),
+          (appId, count) -> count > 1 ? count - 1 : null);
+      admitted = admit();
+    }
+    admitted.forEach(this::start);
+  }
+
+  /**
+   * The admitted plans are started by the caller outside the lock, the preload executor may run a
+   * task on the calling thread.
+   */
+  private List<QueuedPlan> admit() {
+    List<QueuedPlan> admitted = new ArrayList<>();
+    QueuedPlan next;
+    while (runningTotal < maxRunningPlans && (next = pickNext(queuedPlans, true)) != null) {
+      queuedPlans.get(next.getAppId()).poll();
+      runningTotal++;
+      runningPlans.merge(next.getAppId(), 1, Integer::sum);
+      virtualTime = Math.max(virtualTime, next.getStartTag());
+      admitted.add(next);
+    }
+    queuedPlans.values().removeIf(Deque::isEmpty);
+    // an idle app behind the virtual time starts from it again anyway
+    appFinishTags.entrySet().removeIf(
+        entry -> entry.getValue() <= virtualTime && !queuedPlans.containsKey(entry.getKey()));
+    return admitted;
+  }
+
+  private QueuedPlan pickNext(Map<String, Deque<QueuedPlan>> queues, boolean withAppQuota) {
+    QueuedPlan picked = null;
+    for (Map.Entry<String, Deque<QueuedPlan>> entry : queues.entrySet()) {
+      QueuedPlan head = entry.getValue().peek();
+      if (head == null) {
+        continue;
+      }
+      if (withAppQuota && maxRunningPlansPerApp > 0
+          && runningPlans.getOrDefault(entry.getKey(), 0) >= maxRunningPlansPerApp) {
+        continue;
+      }
+      if (picked == null || head.getStartTag() < picked.getStartTag()
+          || (head.getStartTag() == picked.getStartTag()
+          && head.getSequence() < picked.getSequence())) {
+        picked = head;
+      }
+    }
+    return picked;
+  }
+
+  @Getter
+  @AllArgsConstructor
+  private static final class QueuedPlan {
+
+    private final String planId;
+    private final String appId;
+    private final Runnable task;
+    private final double startTag;
+    private final long sequence;
+  }
+}
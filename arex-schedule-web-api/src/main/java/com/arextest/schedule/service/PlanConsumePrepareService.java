@@ -24,18 +24,23 @@ import com.arextest.schedule.progress.ProgressEvent;
 import com.arextest.schedule.service.noise.ReplayNoiseIdentify;
 import com.arextest.schedule.utils.ReplayParentBinder;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import javax.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.util.Strings;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -73,6 +78,25 @@ public class PlanConsumePrepareService {
   private ReplayNoiseIdentify replayNoiseIdentify;
   @Resource
   private ReplayStorageService replayStorageService;
+  @Resource
+  private ExecutorService caseLoadExecutorService;
+
+  /**
+   * number of actions loading cases at the same time, the requests to each storage host are
+   * further limited in ReplayCaseRemoteLoadService
+   */
+  @Value("${arex.schedule.prepare.action.parallelism:4}")
+  private int actionParallelism;
+  /**
+   * fetch the next page of an operation while the current page is being saved
+   */
+  @Value("${arex.schedule.prepare.prefetch:true}")
+  private boolean prefetchEnable;
+  /**
+   * number of failed cases read from mongo at a time when a plan is rerun
+   */
+  @Value("${arex.schedule.rerun.pageSize:500}")
+  private int rerunPageSize;
 
   public int preparePlan(ReplayPlan replayPlan) {
     if (replayPlan.getPlanCreateMillis() == 0) {
@@ -99,42 +123,71 @@ public class PlanConsumePrepareService {
         replayActionItems.get(0).getParent().getReplayPlanType());
 
     int planLoadSize = 0;
+    List<ReplayActionItem> waitLoadActions = new ArrayList<>(replayActionItems.size());
     for (ReplayActionItem action : replayActionItems) {
-      int actionLoadSize = 0;
-
       if (action.getReplayStatus() != ReplayStatusType.INIT.getValue()) {
         planLoadSize += action.getReplayCaseCount();
         continue;
       }
-
-      if (!CollectionUtils.isEmpty(action.getCaseItemList())) {
-        actionLoadSize += loadPinnedCases(action);
-      } else if (planType == BuildReplayPlanType.MIXED) {
-        actionLoadSize += loadCasesByProvider(action, CaseProvider.AUTO_PINED);
-        actionLoadSize += loadCasesByProvider(action, CaseProvider.ROLLING);
-      } else {
-        actionLoadSize += loadCasesByProvider(action, CaseProvider.AUTO_PINED);
-      }
-      planLoadSize += actionLoadSize;
-      action.setReplayCaseCount(actionLoadSize);
-      progressEvent.onActionCaseLoaded(action);
+      waitLoadActions.add(action);
     }
+    planLoadSize += loadActions(waitLoadActions, action -> prepareAction(action, planType));
+
     // if no case saved, fallback to rolling source
     return planLoadSize == 0 ? prepareAllActionsRollingFallback(replayActionItems)
         : planLoadSize;
   }
 
+  private int prepareAction(ReplayActionItem action, BuildReplayPlanType planType) {
+    int actionLoadSize = 0;
+    if (!CollectionUtils.isEmpty(action.getCaseItemList())) {
+      actionLoadSize += loadPinnedCases(action);
+    } else if (planType == BuildReplayPlanType.MIXED) {
+      actionLoadSize += loadCasesByProvider(action, CaseProvider.AUTO_PINED);
+      actionLoadSize += loadCasesByProvider(action, CaseProvider.ROLLING);
+    } else {
+      actionLoadSize += loadCasesByProvider(action, CaseProvider.AUTO_PINED);
+    }
+    action.setReplayCaseCount(actionLoadSize);
+    progressEvent.onActionCaseLoaded(action);
+    return actionLoadSize;
+  }
+
+  /**
+   * Load the actions one after another, or at most actionParallelism of them at the same time.
+   */
+  private int loadActions(List<ReplayActionItem> actions,
+      ToIntFunction<ReplayActionItem> loader) {
+    if (actionParallelism <= 1 || actions.size() <= 1) {
+      int total = 0;
+      for (ReplayActionItem action : actions) {
+        total += loader.applyAsInt(action);
+      }
+      return total;
+    }
+
+    int total = 0;
+    for (int from = 0; from < actions.size(); from += actionParallelism) {
+      List<ReplayActionItem> batch = actions.subList(from,
+          Math.min(from + actionParallelism, actions.size()));
+      List<CompletableFuture<Integer>> futures = batch.stream()
+          .map(action -> CompletableFuture.supplyAsync(() -> loader.applyAsInt(action),
+              caseLoadExecutorService))
+          .collect(Collectors.toList());
+      for (CompletableFuture<Integer> future : futures) {
+        total += join(future);
+      }
+    }
+    return total;
+  }
+
   private int prepareAllActionsRollingFallback(List<ReplayActionItem> replayActionItems) {
-    int planSavedCaseSize = 0;
-    for (ReplayActionItem action : replayActionItems) {
+    return loadActions(replayActionItems, action -> {
       int actionLoadSize = loadCasesByProvider(action, CaseProvider.ROLLING);
-
       action.setReplayCaseCount(actionLoadSize);
       progressEvent.onActionCaseLoaded(action);
-
-      planSavedCaseSize += actionLoadSize;
-    }
-    return planSavedCaseSize;
+      return actionLoadSize;
+    });
   }
 
   private void caseItemPostProcess(List<ReplayActionCaseItem> cases, CaseProvider provider) {
@@ -196,25 +249,58 @@ public class PlanConsumePrepareService {
       return count;
     }
 
-    while (beginTimeMills < endTimeMills) {
-      List<ReplayActionCaseItem> caseItemList = caseRemoteLoadService.pagingLoad(beginTimeMills,
-          endTimeMills, replayActionItem, caseCountLimit - count,
-          provider.getName(), operationTypeData.getOperationType());
-      if (CollectionUtils.isEmpty(caseItemList)) {
-        break;
-      }
+    if (beginTimeMills >= endTimeMills) {
+      return count;
+    }
+    final long pageBeginTimeMills = beginTimeMills;
+    List<ReplayActionCaseItem> caseItemList = caseRemoteLoadService.pagingLoad(beginTimeMills,
+        endTimeMills, replayActionItem, caseCountLimit - count,
+        provider.getName(), operationTypeData.getOperationType());
+    while (CollectionUtils.isNotEmpty(caseItemList)) {
       ReplayParentBinder.setupCaseItemParent(caseItemList, replayActionItem);
       caseItemPostProcess(caseItemList, provider);
       count += caseItemList.size();
       endTimeMills = caseItemList.get(caseItemList.size() - 1).getRecordTime();
+      boolean hasNextPage = count < caseCountLimit && caseItemList.size() >= pageSize
+          && pageBeginTimeMills < endTimeMills;
+
+      Supplier<List<ReplayActionCaseItem>> nextPageLoader = null;
+      if (hasNextPage) {
+        final long pageEndTimeMills = endTimeMills;
+        final int pageLimit = caseCountLimit - count;
+        nextPageLoader = () -> caseRemoteLoadService.pagingLoad(pageBeginTimeMills,
+            pageEndTimeMills, replayActionItem, pageLimit, provider.getName(),
+            operationTypeData.getOperationType());
+      }
+      // the next page is requested while the current one is being saved
+      CompletableFuture<List<ReplayActionCaseItem>> nextPage =
+          nextPageLoader != null && prefetchEnable
+              ? CompletableFuture.supplyAsync(nextPageLoader, caseLoadExecutorService) : null;
+
       replayActionCaseItemRepository.save(caseItemList);
-      if (count >= caseCountLimit || caseItemList.size() < pageSize) {
+      if (!hasNextPage) {
         break;
       }
+      caseItemList = nextPage != null ? join(nextPage) : nextPageLoader.get();
     }
     return count;
   }
 
+  /**
+   * Wait for a load run on the case load executor, a failed load is rethrown as it would be by
+   * the caller thread instead of wrapped in a CompletionException.
+   */
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
   private int loadPinnedCases(ReplayActionItem replayActionItem) {
     List<ReplayActionCaseItem> caseItemList = replayActionItem.getCaseItemList();
     int size = 0;
@@ -244,27 +330,42 @@ public class PlanConsumePrepareService {
   }
 
   // region rerun plan
-  public void updateFailedActionAndCase(ReplayPlan replayPlan,
-      List<ReplayActionCaseItem> failedCaseList) {
+  /**
+   * Reset the failed cases of the plan (or of one plan item) for rerun. The failed cases are read
+   * page by page without their requests. Each page is shown to the listeners with its original
+   * statuses, then reset and written back while the next page is read.
+   */
+  public void updateFailedActionAndCase(ReplayPlan replayPlan, String planItemId) {
     List<ReplayActionItem> replayActionItems = replayPlanActionRepository.queryPlanActionList(
         replayPlan.getId());
 
-    Map<String, List<ReplayActionCaseItem>> failedCaseMap = failedCaseList.stream()
-        .peek(caseItem -> {
-          caseItem.setSendStatus(CaseSendStatusType.WAIT_HANDLING.getValue());
-          caseItem.setCompareStatus(CompareProcessStatusType.WAIT_HANDLING.getValue());
-          caseItem.setTargetResultId(Strings.EMPTY);
-          caseItem.setSourceResultId(Strings.EMPTY);
-        }).collect(Collectors.groupingBy(ReplayActionCaseItem::getPlanItemId));
+    Map<String, FailedCaseSummary> failedCaseMap = new HashMap<>();
+    List<CompletableFuture<Void>> batchUpdateStatusTasks = new ArrayList<>();
+    replayActionCaseItemRepository.streamFailedCases(replayPlan.getId(), planItemId,
+        rerunPageSize, page -> {
+          progressEvent.onUpdateFailedCases(replayPlan, page);
+          for (ReplayActionCaseItem caseItem : page) {
+            caseItem.setSendStatus(CaseSendStatusType.WAIT_HANDLING.getValue());
+            caseItem.setCompareStatus(CompareProcessStatusType.WAIT_HANDLING.getValue());
+            caseItem.setTargetResultId(Strings.EMPTY);
+            caseItem.setSourceResultId(Strings.EMPTY);
+            failedCaseMap.computeIfAbsent(caseItem.getPlanItemId(),
+                key -> new FailedCaseSummary()).add(caseItem);
+          }
+          // XXX: Whether batch update actionCaseItem status is redundant, rerun in doFixedCaseSave has already
+          // implemented this processing.
+          // The cases of excluded actions are deleted below, updating them first is harmless.
+          batchUpdateStatusTasks.add(CompletableFuture.runAsync(
+              () -> replayActionCaseItemRepository.batchUpdateStatus(page),
+              rerunPrepareExecutorService));
+        });
 
     List<ReplayActionItem> failedActionList = replayActionItems.stream()
-        .filter(actionItem -> CollectionUtils.isNotEmpty(failedCaseMap.get(actionItem.getId())))
+        .filter(actionItem -> failedCaseMap.containsKey(actionItem.getId()))
         .peek(actionItem -> {
           actionItem.setParent(replayPlan);
-          actionItem.setCaseItemList(failedCaseMap.get(actionItem.getId()));
           actionItem.setReplayStatus(ReplayStatusType.INIT.getValue());
-          actionItem.setRerunCaseCount(actionItem.getCaseItemList().size());
-          ReplayParentBinder.setupCaseItemParent(actionItem.getCaseItemList(), actionItem);
+          actionItem.setRerunCaseCount(failedCaseMap.get(actionItem.getId()).getRecordIds().size());
         }).collect(Collectors.toList());
     replayPlan.setReplayActionItemList(failedActionList);
 
@@ -274,15 +375,14 @@ public class PlanConsumePrepareService {
     List<String> excludedActionIds = replayActionItemPreprocessService.filterActionItem(
         replayPlan.getReplayActionItemList(), replayPlan.getAppId());
 
-    List<String> excludedCaseIds = failedCaseMap.entrySet().stream()
+    int excludedCaseCount = failedCaseMap.entrySet().stream()
         .filter(entry -> excludedActionIds.contains(entry.getKey()))
-        .flatMap(entry -> entry.getValue().stream()).map(ReplayActionCaseItem::getId)
-        .collect(Collectors.toList());
+        .mapToInt(entry -> entry.getValue().getRecordIds().size()).sum();
 
     int caseRerunCount = replayPlan.getReplayActionItemList().stream()
         .mapToInt(ReplayActionItem::getRerunCaseCount).sum();
     replayPlan.setCaseRerunCount(caseRerunCount);
-    replayPlan.setCaseTotalCount(replayPlan.getCaseTotalCount() - excludedCaseIds.size());
+    replayPlan.setCaseTotalCount(replayPlan.getCaseTotalCount() - excludedCaseCount);
 
     Set<String> availableActionIds =
         replayPlan.getReplayActionItemList().stream().map(ReplayActionItem::getId)
@@ -291,12 +391,12 @@ public class PlanConsumePrepareService {
     Map<String, List<String>> actionIdAndRecordIdsMap =
         failedCaseMap.entrySet().stream()
             .filter(entry -> availableActionIds.contains(entry.getKey()))
-            .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().stream()
-                .map(ReplayActionCaseItem::getRecordId).collect(Collectors.toList())));
-    List<ReplayActionCaseItem> newFailedCaseList = failedCaseList.stream()
-        .filter(replayActionCaseItem -> availableActionIds.contains(
-            replayActionCaseItem.getPlanItemId()))
-        .collect(Collectors.toList());
+            .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getRecordIds()));
+    Map<String, Set<String>> failedContextIdentifiers =
+        failedCaseMap.entrySet().stream()
+            .filter(entry -> availableActionIds.contains(entry.getKey()))
+            .collect(Collectors.toMap(Map.Entry::getKey,
+                entry -> entry.getValue().getContextIdentifiers()));
 
     LOGGER.info("failed actionIdList:{}", availableActionIds);
 
@@ -307,13 +407,9 @@ public class PlanConsumePrepareService {
         () -> replayReportService.removeErrorMsg(replayPlan.getId(),
             new ArrayList<>(actionIdAndRecordIdsMap.keySet())),
         rerunPrepareExecutorService);
-    // XXX: Whether batch update actionCaseItem status is redundant, rerun in doFixedCaseSave has already
-    // implemented this processing
-    CompletableFuture batchUpdateStatusTask = CompletableFuture.runAsync(
-        () -> replayActionCaseItemRepository.batchUpdateStatus(newFailedCaseList),
-        rerunPrepareExecutorService);
     CompletableFuture<Void> noiseAnalysisRecover = CompletableFuture.runAsync(
-        () -> replayNoiseIdentify.rerunNoiseAnalysisRecovery(replayPlan.getReplayActionItemList()),
+        () -> replayNoiseIdentify.rerunNoiseAnalysisRecovery(replayPlan.getReplayActionItemList(),
+            failedContextIdentifiers),
         rerunPrepareExecutorService);
 
     // remove excluded action and case
@@ -327,8 +423,9 @@ public class PlanConsumePrepareService {
             excludedActionIds),
         rerunPrepareExecutorService);
 
-    CompletableFuture.allOf(removeRecordsAndScenesTask, batchUpdateStatusTask, noiseAnalysisRecover,
-        removeErrorMsgTask, updateReportTask, deletePlanItemStatisticsTask, deleteRunDetailsTask).join();
+    CompletableFuture.allOf(removeRecordsAndScenesTask, noiseAnalysisRecover, removeErrorMsgTask,
+        updateReportTask, deletePlanItemStatisticsTask, deleteRunDetailsTask).join();
+    CompletableFuture.allOf(batchUpdateStatusTasks.toArray(new CompletableFuture[0])).join();
   }
 
   public void doResumeOperationDescriptor(ReplayPlan replayPlan) {
@@ -352,5 +449,27 @@ public class PlanConsumePrepareService {
       replayPlan.setMinInstanceCount(planContext.determineMinInstanceCount());
     }
   }
+
+  /**
+   * What the rerun needs to remember of the failed cases of one action.
+   */
+  private static final class FailedCaseSummary {
+
+    private final List<String> recordIds = new ArrayList<>();
+    private final Set<String> contextIdentifiers = new HashSet<>();
+
+    private void add(ReplayActionCaseItem caseItem) {
+      recordIds.add(caseItem.getRecordId());
+      contextIdentifiers.add(caseItem.getContextIdentifier());
+    }
+
+    private List<String> getRecordIds() {
+      return recordIds;
+    }
+
+    private Set<String> getContextIdentifiers() {
+      return contextIdentifiers;
+    }
+  }
   // endregion
 }
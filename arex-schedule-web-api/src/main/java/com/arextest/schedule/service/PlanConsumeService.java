@@ -23,12 +23,8 @@ import com.arextest.schedule.progress.ProgressTracer;
 import com.arextest.schedule.utils.ReplayParentBinder;
 import com.arextest.schedule.utils.StageUtils;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.stream.Collectors;
 import javax.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
@@ -50,7 +46,7 @@ public final class PlanConsumeService {
   @Resource
   private ReplayCaseTransmitServiceImpl replayCaseTransmitServiceRemoteImpl;
   @Resource
-  private ExecutorService preloadExecutorService;
+  private PlanAdmissionService planAdmissionService;
   @Resource
   private ProgressTracer progressTracer;
   @Resource
@@ -66,10 +62,12 @@ public final class PlanConsumeService {
   private double errorBreakRatio;
   @Value("${arex.replay.threshold.continuousFail:40}")
   private int continuousFailThreshold;
+  @Value("${arex.replay.limiter.adaptive:false}")
+  private boolean adaptiveLimiter;
 
   public void runAsyncConsume(ReplayPlan replayPlan) {
     BizLogger.recordPlanAsyncStart(replayPlan);
-    preloadExecutorService.execute(new ReplayActionLoadingRunnableImpl(replayPlan));
+    planAdmissionService.submit(replayPlan, new ReplayActionLoadingRunnableImpl(replayPlan));
   }
 
   private void consumePlan(ReplayPlan replayPlan) {
@@ -142,7 +140,6 @@ public final class PlanConsumeService {
   private void consumeContextPaged(ReplayPlan replayPlan, PlanExecutionContext executionContext) {
     ExecutionStatus executionStatus = executionContext.getExecutionStatus();
     List<ReplayActionCaseItem> caseItems = Collections.emptyList();
-    final Set<String> lastBatchIds = new HashSet<>();
     while (true) {
       // checkpoint: before sending page of cases
       if (executionStatus.isAbnormal()) {
@@ -152,23 +149,16 @@ public final class PlanConsumeService {
           CollectionUtils.isNotEmpty(caseItems) ? caseItems.get(caseItems.size() - 1) : null;
 
       caseItems = replayActionCaseItemRepository.waitingSendList(replayPlan.getId(),
-          CommonConstant.MAX_PAGE_SIZE,
-          executionContext.getContextCaseQuery(),
-          Optional.ofNullable(lastItem).map(ReplayActionCaseItem::getRecordTime).orElse(null));
-
-      caseItems.removeIf(caseItem -> lastBatchIds.contains(caseItem.getId()));
+          CommonConstant.MAX_PAGE_SIZE, executionContext.getContextCaseQuery(), lastItem);
       if (CollectionUtils.isEmpty(caseItems)) {
         break;
       }
 
-      lastBatchIds.clear();
-      lastBatchIds.addAll(
-          caseItems.stream().map(ReplayActionCaseItem::getId).collect(Collectors.toSet()));
-
       ReplayParentBinder.setupCaseItemParent(caseItems, replayPlan);
       caseItemPostProcess(caseItems);
       replayCaseTransmitServiceRemoteImpl.send(caseItems, executionContext);
     }
+    replayCaseTransmitServiceRemoteImpl.awaitContextSent(executionContext);
   }
 
   private void caseItemPostProcess(List<ReplayActionCaseItem> cases) {
@@ -289,7 +279,7 @@ public final class PlanConsumeService {
       // limiter shared for entire plan, max qps = maxQps per instance * min instance count
       final SendSemaphoreLimiter qpsLimiter = new SendSemaphoreLimiter(
           replayPlan.getReplaySendMaxQps(),
-          replayPlan.getMinInstanceCount());
+          replayPlan.getMinInstanceCount(), adaptiveLimiter);
       qpsLimiter.setTotalTasks(replayPlan.getCaseTotalCount());
       qpsLimiter.setReplayPlan(replayPlan);
       qpsLimiter.setErrorBreakRatio(errorBreakRatio);
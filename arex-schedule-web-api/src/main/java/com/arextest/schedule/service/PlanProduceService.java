@@ -17,7 +17,6 @@ import com.arextest.schedule.exceptions.PlanRunningException;
 import com.arextest.schedule.mdc.MDCTracer;
 import com.arextest.schedule.model.CaseSourceEnvType;
 import com.arextest.schedule.model.CommonResponse;
-import com.arextest.schedule.model.ReplayActionCaseItem;
 import com.arextest.schedule.model.ReplayActionItem;
 import com.arextest.schedule.model.ReplayPlan;
 import com.arextest.schedule.model.ReplayStatusType;
@@ -86,6 +85,8 @@ public class PlanProduceService {
   private AsyncEventBus autoRerunAsyncEventBus;
   @Resource
   private ConfigProvider configProvider;
+  @Resource
+  private PlanAdmissionService planAdmissionService;
 
   @PostConstruct
   public void init() {
@@ -300,6 +301,8 @@ public class PlanProduceService {
       // set key for other instance to stop internal execution
       redisCacheProvider.putIfAbsent(buildStopPlanRedisKey(planId),
           STOP_PLAN_REDIS_EXPIRE, planId.getBytes(StandardCharsets.UTF_8));
+      // a plan waiting for admission on this instance never starts
+      planAdmissionService.cancel(planId);
 
       // set the canceled status immediately to give quick response to user
       progressEvent.onReplayPlanTerminate(planId, "Plan Cancelled by " + operator);
@@ -344,9 +347,10 @@ public class PlanProduceService {
       progressEvent.onReplayPlanReRunException(replayPlan);
       return CommonResponse.badResponse("The plan's version is too old");
     }
-    List<ReplayActionCaseItem> failedCaseList = replayActionCaseItemRepository.failedCaseList(
-        planId, planItemId);
-    if (CollectionUtils.isEmpty(failedCaseList)) {
+    // the failed cases are read from the db, write the buffered statuses first
+    replayActionCaseItemRepository.flushSendResults();
+    replayActionCaseItemRepository.flushCompareStatuses();
+    if (!replayActionCaseItemRepository.hasFailedCase(planId, planItemId)) {
       progressEvent.onReplayPlanReRunException(replayPlan);
       return CommonResponse.badResponse("No failed case found");
     }
@@ -369,9 +373,7 @@ public class PlanProduceService {
       progressEvent.onReplayPlanReRun(replayPlan);
       progressEvent.onReplayPlanStageUpdate(replayPlan, PlanStageEnum.LOADING_CASE,
           StageStatusEnum.ONGOING, System.currentTimeMillis(), null);
-
-      progressEvent.onUpdateFailedCases(replayPlan, failedCaseList);
-      planConsumePrepareService.updateFailedActionAndCase(replayPlan, failedCaseList);
+      planConsumePrepareService.updateFailedActionAndCase(replayPlan, planItemId);
       if (CollectionUtils.isEmpty(replayPlan.getReplayActionItemList())) {
         throw new RuntimeException("no replayActionItem!");
       }
@@ -23,10 +23,14 @@ import com.arextest.schedule.model.ReplayPlan;
 import com.arextest.schedule.utils.MapUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 import javax.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
@@ -58,6 +62,13 @@ public class ReplayCaseRemoteLoadService {
   private ObjectMapper objectMapper;
   @Resource
   private MetricService metricService;
+  /**
+   * max concurrent paging requests to one storage host, actions of plans prepared in parallel
+   * share it
+   */
+  @Value("${arex.schedule.prepare.storage.parallelism:4}")
+  private int storageHostParallelism;
+  private final Map<String, Semaphore> storageHostPermits = new ConcurrentHashMap<>();
 
   public int queryCaseCount(ReplayActionItem replayActionItem, String providerName) {
     int queryTotalCount = EMPTY_SIZE;
@@ -165,10 +176,26 @@ public class ReplayCaseRemoteLoadService {
 
     PagedResponseType responseType;
     StopWatch watch = new StopWatch();
-    watch.start(LogType.LOAD_CASE_TIME.getValue());
-    responseType = wepApiClientService.jsonPost(replayCaseUrl, requestType,
-        PagedResponseType.class);
-    watch.stop();
+    Semaphore permits = storageHostPermits(replayCaseUrl);
+    try {
+      if (permits != null) {
+        permits.acquire();
+      }
+    } catch (InterruptedException e) {
+      // an empty page would end the loading of the operation as if all its cases were read
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while waiting for the storage permit", e);
+    }
+    try {
+      watch.start(LogType.LOAD_CASE_TIME.getValue());
+      responseType = wepApiClientService.jsonPost(replayCaseUrl, requestType,
+          PagedResponseType.class);
+      watch.stop();
+    } finally {
+      if (permits != null) {
+        permits.release();
+      }
+    }
     LOGGER.info("get replay case app id:{},time used:{} ms, operation:{}",
         requestType.getAppId(),
         watch.getTotalTimeMillis(), requestType.getOperation()
@@ -188,6 +215,20 @@ public class ReplayCaseRemoteLoadService {
     return toCaseItemList(responseType.getRecords());
   }
 
+  private Semaphore storageHostPermits(String url) {
+    if (storageHostParallelism <= 0 || StringUtils.isEmpty(url)) {
+      return null;
+    }
+    String host;
+    try {
+      host = URI.create(url).getAuthority();
+    } catch (IllegalArgumentException e) {
+      host = url;
+    }
+    return storageHostPermits.computeIfAbsent(String.valueOf(host),
+        key -> new Semaphore(storageHostParallelism));
+  }
+
   /**
    * Flashback to pull data
    */
@@ -2,6 +2,7 @@ package com.arextest.schedule.service;
 
 import com.arextest.schedule.bizlog.BizLogger;
 import com.arextest.schedule.common.CommonConstant;
+import com.arextest.schedule.common.SendInFlightWindow;
 import com.arextest.schedule.common.SendSemaphoreLimiter;
 import com.arextest.schedule.comparer.ComparisonWriter;
 import com.arextest.schedule.comparer.ReplayResultComparer;
@@ -17,10 +18,10 @@ import com.arextest.schedule.progress.ProgressEvent;
 import com.arextest.schedule.progress.ProgressTracer;
 import com.arextest.schedule.sender.ReplaySender;
 import com.arextest.schedule.sender.ReplaySenderFactory;
+import com.arextest.schedule.sender.impl.MockCachePreLoader;
 import com.arextest.schedule.service.noise.ReplayNoiseIdentify;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -28,6 +29,7 @@ import java.util.stream.Collectors;
 import javax.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -41,6 +43,8 @@ public class ReplayCaseTransmitServiceImpl implements ReplayCaseTransmitService
   @Resource
   private ExecutorService sendExecutorService;
   @Resource
+  private ExecutorService sendCompletionExecutorService;
+  @Resource
   private ExecutorService compareExecutorService;
   @Resource
   private ReplayResultComparer replayResultComparer;
@@ -49,6 +53,8 @@ public class ReplayCaseTransmitServiceImpl implements ReplayCaseTransmitService
   @Resource
   private ReplayCompareService replayCompareService;
   @Resource
+  private ReplayComparePipeline replayComparePipeline;
+  @Resource
   private ReplayActionCaseItemRepository replayActionCaseItemRepository;
   @Resource
   private ProgressTracer progressTracer;
@@ -64,6 +70,10 @@ public class ReplayCaseTransmitServiceImpl implements ReplayCaseTransmitService
   private ReplayNoiseIdentify replayNoiseIdentify;
   @Resource
   private ConfigProvider configProvider;
+  @Resource
+  private MockCachePreLoader mockCachePreLoader;
+  @Value("${arex.schedule.send.window.size:" + CommonConstant.MAX_PAGE_SIZE + "}")
+  private int sendWindowSize;
 
   public void send(List<ReplayActionCaseItem> caseItems, PlanExecutionContext<?> executionContext) {
     ExecutionStatus executionStatus = executionContext.getExecutionStatus();
@@ -77,7 +87,7 @@ public class ReplayCaseTransmitServiceImpl implements ReplayCaseTransmitService
     replayNoiseIdentify.noiseIdentify(caseItems, executionContext);
 
     try {
-      doSendValuesToRemoteHost(caseItems, executionStatus);
+      doSendValuesToRemoteHost(caseItems, executionStatus, executionContext.getSendWindow());
     } catch (Throwable throwable) {
       LOGGER.error("do send error:{}", throwable.getMessage(), throwable);
       markAllSendStatus(caseItems, CaseSendStatusType.EXCEPTION_FAILED);
@@ -128,13 +138,44 @@ public class ReplayCaseTransmitServiceImpl implements ReplayCaseTransmitService
     }
   }
 
+  /**
+   * Wait for the cases still in flight of the context, the context hooks (e.g. switching the
+   * dependency version of the target) must not run while its cases are being sent.
+   */
+  public void awaitContextSent(PlanExecutionContext<?> executionContext) {
+    SendInFlightWindow sendWindow = executionContext.getSendWindow();
+    try {
+      boolean clear = sendWindow.awaitEmpty(CommonConstant.GROUP_SENT_WAIT_TIMEOUT_SECONDS,
+          TimeUnit.SECONDS);
+      if (!clear) {
+        LOGGER.error("Send window failed to await all request of context: {}, in flight: {}",
+            executionContext.getContextName(), sendWindow.inFlight());
+      }
+    } catch (InterruptedException e) {
+      LOGGER.error("await context sent error:{}", e.getMessage(), e);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Submit the cases into the in-flight window without waiting for them, a slow case only holds
+   * its own slot of the window instead of holding up the next page.
+   */
   private void doSendValuesToRemoteHost(List<ReplayActionCaseItem> values,
-      ExecutionStatus executionStatus) {
+      ExecutionStatus executionStatus, SendInFlightWindow sendWindow) {
     final int valueSize = values.size();
     final SendSemaphoreLimiter semaphore = executionStatus.getLimiter();
-    final CountDownLatch groupSentLatch = new CountDownLatch(valueSize);
+    sendWindow.setMaxInFlight(sendWindowSize);
+    final int prefetchSize = mockCachePreLoader.getPrefetchSize();
+    int prefetchedTo = 0;
 
     for (int i = 0; i < valueSize; i++) {
+      // top the mock cache prefetch up in batches once half of it has been consumed
+      if (prefetchSize > 0 && prefetchedTo - i <= prefetchSize / 2 && prefetchedTo < valueSize) {
+        int prefetchFrom = Math.max(prefetchedTo, i);
+        prefetchedTo = Math.min(valueSize, i + prefetchSize);
+        mockCachePreLoader.prefetchCache(values.subList(prefetchFrom, prefetchedTo));
+      }
       ReplayActionCaseItem replayActionCaseItem = values.get(i);
       ReplayActionItem actionItem = replayActionCaseItem.getParent();
       MDCTracer.addDetailId(replayActionCaseItem.getId());
@@ -145,26 +186,42 @@ public class ReplayCaseTransmitServiceImpl implements ReplayCaseTransmitService
         return;
       }
 
+      boolean entered = false;
+      boolean acquired = false;
       try {
         ReplaySender replaySender = findReplaySender(replayActionCaseItem);
         if (replaySender == null) {
-          groupSentLatch.countDown();
           doSendFailedAsFinish(replayActionCaseItem, CaseSendStatusType.READY_DEPENDENCY_FAILED);
           continue;
         }
+        // the backpressure of the compare stage, a full pipeline holds the send loop of this plan
+        // here, cases that find it full are compared by the delayed compare
+        replayComparePipeline.awaitCapacity(actionItem.getPlanId());
+        sendWindow.enter();
+        entered = true;
         semaphore.acquire();
+        acquired = true;
         AsyncSendCaseTaskRunnable taskRunnable = new AsyncSendCaseTaskRunnable(this);
         taskRunnable.setExecutionStatus(executionStatus);
         taskRunnable.setCaseItem(replayActionCaseItem);
         taskRunnable.setReplaySender(replaySender);
-        taskRunnable.setGroupSentLatch(groupSentLatch);
+        taskRunnable.setSendWindow(sendWindow);
         taskRunnable.setLimiter(semaphore);
         taskRunnable.setMetricService(metricService);
+        taskRunnable.setCompletionExecutor(sendCompletionExecutorService);
         sendExecutorService.execute(taskRunnable);
         LOGGER.info("submit replay sending success");
       } catch (Throwable throwable) {
-        groupSentLatch.countDown();
-        semaphore.release(false);
+        if (throwable instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
+        if (entered) {
+          sendWindow.exit();
+        }
+        // a permit that was never taken is not a send failure
+        if (acquired) {
+          semaphore.release(false);
+        }
         replayActionCaseItem.buildParentErrorMessage(throwable.getMessage());
         LOGGER.error("send group to remote host error:{} ,case item id:{}", throwable.getMessage(),
             replayActionCaseItem.getId(), throwable);
@@ -174,16 +231,6 @@ public class ReplayCaseTransmitServiceImpl implements ReplayCaseTransmitService
       }
     }
 
-    try {
-      boolean clear = groupSentLatch.await(CommonConstant.GROUP_SENT_WAIT_TIMEOUT_SECONDS,
-          TimeUnit.SECONDS);
-      if (!clear) {
-        LOGGER.error("Send group failed to await all request of batch");
-      }
-    } catch (InterruptedException e) {
-      LOGGER.error("send group to remote host error:{}", e.getMessage(), e);
-      Thread.currentThread().interrupt();
-    }
     MDCTracer.removeDetailId();
   }
 
@@ -198,10 +245,19 @@ public class ReplayCaseTransmitServiceImpl implements ReplayCaseTransmitService
     caseItem.setSendStatus(sendStatusType.getValue());
 
     if (sendStatusType == CaseSendStatusType.SUCCESS) {
-      replayActionCaseItemRepository.updateSendResult(caseItem);
+      if (replayActionCaseItemRepository.isSendResultBatchEnabled()) {
+        replayActionCaseItemRepository.updateSendResultAsync(caseItem)
+            .thenAccept(updated -> retryFailedSendResult(caseItem, updated));
+      } else {
+        replayActionCaseItemRepository.updateSendResult(caseItem);
+      }
       // async compare task
       int compareDelaySeconds = configProvider.getCompareDelaySeconds(
           caseItem.getParent().getAppId());
+      if (replayComparePipeline.offer(caseItem, compareDelaySeconds)) {
+        LOGGER.info("Compare task queued, case id: {}", caseItem.getId());
+        return;
+      }
       if (compareDelaySeconds == 0) {
         AsyncCompareCaseTaskRunnable compareTask = new AsyncCompareCaseTaskRunnable(
             replayResultComparer, caseItem);
@@ -218,6 +274,23 @@ public class ReplayCaseTransmitServiceImpl implements ReplayCaseTransmitService
     }
   }
 
+  /**
+   * the batched write reports failure per case, retry it with a single update so the case is not
+   * left in waiting status.
+   */
+  private void retryFailedSendResult(ReplayActionCaseItem caseItem, boolean updated) {
+    if (updated) {
+      return;
+    }
+    try {
+      boolean retried = replayActionCaseItemRepository.updateSendResult(caseItem);
+      LOGGER.warn("batched send result write failed, retried case id: {}, result: {}",
+          caseItem.getId(), retried);
+    } catch (Throwable throwable) {
+      LOGGER.error("retry send result error, case id: {}", caseItem.getId(), throwable);
+    }
+  }
+
   private ReplaySender findReplaySender(ReplayActionCaseItem caseItem) {
     ReplaySender sender = senderFactory.findReplaySender(caseItem.getCaseType());
     if (sender != null) {
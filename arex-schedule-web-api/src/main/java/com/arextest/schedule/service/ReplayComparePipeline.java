@@ -0,0 +1,285 @@
+package com.arextest.schedule.service;
+
+import com.arextest.schedule.common.SendSemaphoreLimiter;
+import com.arextest.schedule.comparer.ReplayResultComparer;
+import com.arextest.schedule.model.ExecutionStatus;
+import com.arextest.schedule.model.LogType;
+import com.arextest.schedule.model.ReplayActionCaseItem;
+import com.arextest.schedule.model.ReplayPlan;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands the sent cases over to the compare stage through a bounded queue. A case is compared once
+ * the compare delay of its app has passed, the same way the delayed compare does. Each plan has
+ * its own slots, the send loop of a plan waits for a free slot of that plan before it sends the
+ * next case, so sending can not run far ahead of comparing and a plan with a long compare delay
+ * only holds up itself. The slots of a plan cover its max send rate over the compare delay, so a
+ * plan sending at full rate is not held up by its own compare delay. The delayed compare is only
+ * the fallback of a full plan.
+ *
+ * @see ReplayCaseTransmitServiceImpl#updateSendResult
+ */
+@Slf4j
+@Component
+public class ReplayComparePipeline {
+
+  @Resource
+  private ReplayResultComparer replayResultComparer;
+  @Resource
+  private ReplayCompareService replayCompareService;
+  @Resource
+  private ExecutorService compareExecutorService;
+  @Resource
+  private MetricService metricService;
+  @Resource
+  private ScheduledExecutorService monitorScheduler;
+
+  @Getter
+  @Value("${arex.schedule.compare.pipeline.enable:true}")
+  private boolean enable;
+  /**
+   * the most slots of a plan, also used when the send rate of the plan is not known
+   */
+  @Value("${arex.schedule.compare.pipeline.capacity:2000}")
+  private int capacity;
+  /**
+   * the longest time the send loop waits for a free slot. After that the plan stops waiting and its
+   * cases fall back to the delayed compare until one of its queued compares is dispatched.
+   */
+  @Value("${arex.schedule.compare.pipeline.offerTimeoutMillis:30000}")
+  private long offerTimeoutMillis;
+  @Value("${arex.schedule.compare.pipeline.metricSeconds:60}")
+  private long metricSeconds;
+  /**
+   * the most ready cases taken at once, the ready cases of one action without a compare delay are
+   * compared together and load their compare sources in one batch
+   */
+  @Value("${arex.schedule.compare.pipeline.batchSize:20}")
+  private int batchSize;
+
+  private DelayQueue<PendingCompare> pendingCompares;
+  private final ConcurrentHashMap<String, PlanSlots> planSlots = new ConcurrentHashMap<>();
+  private ExecutorService dispatcher;
+  private volatile boolean running;
+
+  @PostConstruct
+  private void start() {
+    if (!enable) {
+      return;
+    }
+    pendingCompares = new DelayQueue<>();
+    running = true;
+    dispatcher = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("compare-pipeline-%d").build());
+    dispatcher.execute(this::dispatch);
+    if (metricSeconds > 0 && monitorScheduler != null) {
+      monitorScheduler.scheduleAtFixedRate(this::reportSize, metricSeconds, metricSeconds,
+          TimeUnit.SECONDS);
+    }
+  }
+
+  @PreDestroy
+  private void stop() {
+    if (dispatcher == null) {
+      return;
+    }
+    running = false;
+    dispatcher.shutdownNow();
+  }
+
+  /**
+   * Called by the send loop of the plan before it sends the next case, it does not take the slot.
+   *
+   * @return false if no slot of the plan freed up in time
+   */
+  public boolean awaitCapacity(String planId) {
+    if (!enable) {
+      return true;
+    }
+    PlanSlots slots = planSlots.get(planId);
+    // nothing of the plan is queued
+    if (slots == null) {
+      return true;
+    }
+    // the last wait timed out, do not wait again for each case until a compare is dispatched
+    if (slots.overflowed) {
+      return slots.free.availablePermits() > 0;
+    }
+    try {
+      if (slots.free.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        slots.free.release();
+        return true;
+      }
+      slots.overflowed = true;
+      LOGGER.warn("compare pipeline is full, plan id: {}, size: {}", planId,
+          pendingCompares.size());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+
+  /**
+   * Never blocks, the wait for a slot belongs to the send loop.
+   *
+   * @return false if the case was not taken, the caller should compare it another way
+   */
+  public boolean offer(ReplayActionCaseItem caseItem, int compareDelaySeconds) {
+    if (!enable) {
+      return false;
+    }
+    String planId = caseItem.getParent().getPlanId();
+    boolean[] acquired = new boolean[1];
+    // taken under the map lock, so a plan left without queued compares is not removed meanwhile
+    PlanSlots slots = planSlots.compute(planId, (key, current) -> {
+      PlanSlots planSlot = current == null
+          ? new PlanSlots(planCapacity(caseItem, compareDelaySeconds)) : current;
+      acquired[0] = planSlot.free.tryAcquire();
+      return planSlot;
+    });
+    if (!acquired[0]) {
+      return false;
+    }
+    // the task is created on the sender thread to carry over its trace context
+    Runnable task = compareDelaySeconds == 0
+        ? new AsyncCompareCaseTaskRunnable(replayResultComparer, caseItem)
+        : new AsyncDelayCompareCaseTaskRunnable(replayCompareService, caseItem);
+    pendingCompares.add(new PendingCompare(task, caseItem, compareDelaySeconds == 0,
+        System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(compareDelaySeconds), planId,
+        slots));
+    return true;
+  }
+
+  public int size() {
+    return pendingCompares == null ? 0 : pendingCompares.size();
+  }
+
+  private void dispatch() {
+    while (running) {
+      try {
+        List<PendingCompare> ready = new ArrayList<>();
+        ready.add(pendingCompares.take());
+        // only the cases whose delay has passed are drained
+        pendingCompares.drainTo(ready, Math.max(batchSize, 1) - 1);
+        Map<String, List<PendingCompare>> batches = new LinkedHashMap<>();
+        for (PendingCompare pending : ready) {
+          releaseSlot(pending);
+          if (pending.isBatchable()) {
+            batches.computeIfAbsent(pending.getCaseItem().getPlanItemId(),
+                key -> new ArrayList<>()).add(pending);
+          } else {
+            execute(pending.getTask());
+          }
+        }
+        for (List<PendingCompare> batch : batches.values()) {
+          execute(batch.size() == 1 ? batch.get(0).getTask()
+              : new AsyncCompareCaseBatchTaskRunnable(replayResultComparer,
+                  batch.stream().map(PendingCompare::getCaseItem).collect(Collectors.toList())));
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Throwable throwable) {
+        LOGGER.error("dispatch compare task error", throwable);
+      }
+    }
+  }
+
+  private void execute(Runnable task) {
+    try {
+      // the compare pool runs the task on this thread when it is full, which holds the queue
+      compareExecutorService.execute(task);
+    } catch (Throwable throwable) {
+      LOGGER.error("dispatch compare task error", throwable);
+    }
+  }
+
+  /**
+   * Twice the cases the plan sends at its max rate while one of them waits for the compare delay,
+   * a delay of 0 still waits for the dispatch.
+   */
+  private int planCapacity(ReplayActionCaseItem caseItem, int compareDelaySeconds) {
+    ReplayPlan replayPlan = caseItem.getParent().getParent();
+    ExecutionStatus planStatus = replayPlan == null ? null : replayPlan.getPlanStatus();
+    SendSemaphoreLimiter limiter = planStatus == null ? null : planStatus.getLimiter();
+    if (limiter == null) {
+      return capacity;
+    }
+    long planCapacity = 2L * limiter.getSendMaxRate() * Math.max(1, compareDelaySeconds);
+    return (int) Math.max(1, Math.min(capacity, planCapacity));
+  }
+
+  private void releaseSlot(PendingCompare pending) {
+    PlanSlots slots = pending.getSlots();
+    slots.free.release();
+    slots.overflowed = false;
+    // forget the plan once all of its slots are free again
+    planSlots.computeIfPresent(pending.getPlanId(),
+        (key, current) -> current.free.availablePermits() >= current.capacity ? null : current);
+  }
+
+  private void reportSize() {
+    try {
+      metricService.recordCountEvent(LogType.COMPARE_PIPELINE_SIZE.getValue(), null, null,
+          size());
+    } catch (Exception e) {
+      LOGGER.warn("report compare pipeline size error: {}", e.getMessage());
+    }
+  }
+
+  @Getter
+  @AllArgsConstructor
+  private static final class PendingCompare implements Delayed {
+
+    private final Runnable task;
+    private final ReplayActionCaseItem caseItem;
+    // compared by the local comparer right away, so it can share a batch with its action
+    private final boolean batchable;
+    private final long readyMillis;
+    private final String planId;
+    private final PlanSlots slots;
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(readyMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      return Long.compare(readyMillis, ((PendingCompare) other).readyMillis);
+    }
+  }
+
+  private static final class PlanSlots {
+
+    private final int capacity;
+    private final Semaphore free;
+    private volatile boolean overflowed;
+
+    private PlanSlots(int capacity) {
+      this.capacity = capacity;
+      this.free = new Semaphore(capacity);
+    }
+  }
+}
@@ -9,6 +9,7 @@ import com.arextest.model.mock.MockCategoryType;
 import com.arextest.schedule.client.HttpWepServiceApiClient;
 import com.arextest.schedule.comparer.ComparisonWriter;
 import com.arextest.schedule.dao.mongodb.ReplayCompareResultRepositoryImpl;
+import com.arextest.schedule.eventBus.CompareResultsSavedEvent;
 import com.arextest.schedule.model.ReplayActionCaseItem;
 import com.arextest.schedule.model.ReplayActionItem;
 import com.arextest.schedule.model.ReplayCompareResult;
@@ -25,11 +26,22 @@ import com.arextest.web.model.contract.contracts.ReportInitialRequestType;
 import com.arextest.web.model.contract.contracts.common.PlanStatistic;
 import com.arextest.web.model.contract.contracts.replay.AnalyzeCompareResultsRequestType;
 import com.arextest.web.model.contract.contracts.replay.UpdateReportInfoRequestType;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
@@ -51,6 +63,8 @@ public final class ReplayReportService implements ComparisonWriter {
   private ReplayCompareResultConverter converter;
   @Resource
   private HttpWepServiceApiClient httpWepServiceApiClient;
+  @Resource
+  private EventBus compareResultEventBus;
   @Value("${arex.api.init.url}")
   private String reportInitUrl;
   @Value("${arex.api.push.compareResult.url}")
@@ -68,6 +82,43 @@ public final class ReplayReportService implements ComparisonWriter {
   @Value("${arex.api.delete.planItemStatistics.url}")
   private String deletePlanItemStatisticsUrl;
 
+  /**
+   * compare results of several cases are buffered and flushed as one delete, one insertAll and
+   * one report push, on the case count or the flush interval.
+   */
+  @Value("${arex.report.compareResult.batch.enable:false}")
+  private boolean compareResultBatchEnable;
+  @Value("${arex.report.compareResult.batch.size:100}")
+  private int compareResultBatchSize;
+  @Value("${arex.report.compareResult.batch.flushMillis:500}")
+  private long compareResultFlushMillis;
+
+  private final Queue<List<ReplayCompareResult>> pendingCompareResults =
+      new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pendingCaseCount = new AtomicInteger();
+  private final Object flushLock = new Object();
+  private ScheduledExecutorService compareResultFlusher;
+
+  @PostConstruct
+  private void initCompareResultFlusher() {
+    if (!compareResultBatchEnable) {
+      return;
+    }
+    compareResultFlusher = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("compare-result-flusher-%d")
+            .build());
+    compareResultFlusher.scheduleWithFixedDelay(this::flushCompareResults,
+        compareResultFlushMillis, compareResultFlushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  private void destroyCompareResultFlusher() {
+    if (compareResultFlusher != null) {
+      compareResultFlusher.shutdown();
+    }
+    flushCompareResults();
+  }
+
   public boolean initReportInfo(ReplayPlan replayPlan) {
     ReportInitialRequestType requestType = new ReportInitialRequestType();
     requestType.setPlanId(replayPlan.getId());
@@ -153,17 +204,84 @@ public final class ReplayReportService implements ComparisonWriter {
       LOGGER.info("not write comparedResult");
       return true;
     }
+    if (!compareResultBatchEnable) {
+      doWrite(Collections.singletonList(comparedResult));
+      return true;
+    }
+    pendingCompareResults.add(comparedResult);
+    if (pendingCaseCount.incrementAndGet() >= compareResultBatchSize) {
+      flushCompareResults();
+    }
+    return true;
+  }
+
+  /**
+   * Write all buffered compare results, called before the plan statistic is read or the plan
+   * status is pushed so that the report sees every compared case.
+   */
+  public void flushCompareResults() {
+    // one flush at a time, keeps the writes of a record in order
+    synchronized (flushLock) {
+      while (!pendingCompareResults.isEmpty()) {
+        List<List<ReplayCompareResult>> batch = new ArrayList<>(compareResultBatchSize);
+        List<ReplayCompareResult> caseResults;
+        while (batch.size() < compareResultBatchSize
+            && (caseResults = pendingCompareResults.poll()) != null) {
+          batch.add(caseResults);
+        }
+        pendingCaseCount.addAndGet(-batch.size());
+        try {
+          doWrite(batch);
+        } catch (Throwable throwable) {
+          LOGGER.error("flush compare results error, case size: {}", batch.size(), throwable);
+          writeEachCase(batch);
+        }
+      }
+    }
+  }
+
+  /**
+   * fallback of a failed batch, so one bad case does not drop the results of the others.
+   */
+  private void writeEachCase(List<List<ReplayCompareResult>> batch) {
+    for (List<ReplayCompareResult> caseResults : batch) {
+      try {
+        doWrite(Collections.singletonList(caseResults));
+      } catch (Throwable throwable) {
+        ReplayCompareResult firstResult = caseResults.get(0);
+        LOGGER.error("write compare results error, plan item id: {}, record id: {}",
+            firstResult.getPlanItemId(), firstResult.getRecordId(), throwable);
+      }
+    }
+  }
+
+  /**
+   * @param caseResults the compare results of each case, a later write of the same record
+   *                    replaces the earlier one like a delete by record does
+   */
+  private void doWrite(List<List<ReplayCompareResult>> caseResults) {
+    Map<String, List<ReplayCompareResult>> latestOfRecord = new LinkedHashMap<>();
+    for (List<ReplayCompareResult> results : caseResults) {
+      ReplayCompareResult firstResult = results.get(0);
+      latestOfRecord.put(firstResult.getPlanItemId() + "_" + firstResult.getRecordId(), results);
+    }
+
+    Map<String, List<String>> planItemIdToRecordIds = new HashMap<>();
+    List<ReplayCompareResult> comparedResult = new ArrayList<>();
+    for (List<ReplayCompareResult> results : latestOfRecord.values()) {
+      ReplayCompareResult firstResult = results.get(0);
+      planItemIdToRecordIds.computeIfAbsent(firstResult.getPlanItemId(), k -> new ArrayList<>())
+          .add(firstResult.getRecordId());
+      comparedResult.addAll(results);
+    }
     int comparedSize = comparedResult.size();
 
+    this.replayCompareResultRepository.deleteByRecords(planItemIdToRecordIds);
+    this.replayCompareResultRepository.save(comparedResult);
+
     AnalyzeCompareResultsRequestType request = new AnalyzeCompareResultsRequestType();
     List<AnalyzeCompareResultsRequestType.AnalyzeCompareInfoItem> reqItems = new ArrayList<>(
         comparedSize);
-
-    ReplayCompareResult firstResult = comparedResult.get(0);
-    this.replayCompareResultRepository.deleteByRecord(firstResult.getRecordId(),
-        firstResult.getPlanItemId());
-    this.replayCompareResultRepository.save(comparedResult);
-
     for (ReplayCompareResult sourceResult : comparedResult) {
       reqItems.add(converter.reportContractFromBo(sourceResult));
     }
@@ -175,7 +293,18 @@ public final class ReplayReportService implements ComparisonWriter {
       LOGGER.error("push replay compared result to report size: {}, result:{}", comparedSize,
           response);
     }
-    return true;
+    // after the push, the background job reloads the results by id and updates the stored copy
+    List<String> pendingDiffDetailIds = new ArrayList<>();
+    for (ReplayCompareResult sourceResult : comparedResult) {
+      if (sourceResult.getId() != null
+          && sourceResult.getDiffResultCode() == DiffResultCode.COMPARED_WITH_DIFFERENCE
+          && CollectionUtils.isEmpty(sourceResult.getLogs())) {
+        pendingDiffDetailIds.add(sourceResult.getId());
+      }
+    }
+    if (!pendingDiffDetailIds.isEmpty()) {
+      compareResultEventBus.post(new CompareResultsSavedEvent(pendingDiffDetailIds));
+    }
   }
 
   @Override
@@ -69,6 +69,13 @@ public class AsyncNoiseCaseAnalysisTaskRunnable extends AbstractContextWithTrace
     try {
       List<ReplayActionCaseItem> cases = actionItemForNoiseIdentify.getCases();
 
+      // load the compare sources of all analysed cases at once
+      Map<String, List<CategoryComparisonHolder>> waitCompareLists =
+          sourceRemoteLoader.buildWaitCompareList(cases.stream()
+              .filter(caseItem -> caseItem.getSourceResultId() != null
+                  || caseItem.getTargetResultId() != null)
+              .collect(Collectors.toList()), true);
+
       // do compare
       List<ReplayCompareResult> compareResults = new ArrayList<>();
       for (ReplayActionCaseItem caseItem : cases) {
@@ -84,7 +91,7 @@ public class AsyncNoiseCaseAnalysisTaskRunnable extends AbstractContextWithTrace
         }
 
         List<CategoryComparisonHolder> categoryComparisonHolders =
-            sourceRemoteLoader.buildWaitCompareList(caseItem, true);
+            waitCompareLists.getOrDefault(caseItem.getId(), Collections.emptyList());
         List<ReplayCompareResult> replayCompareResults =
             replayResultComparer.doContentCompare(caseItem, categoryComparisonHolders);
         Optional.ofNullable(replayCompareResults).orElse(Collections.emptyList()).forEach(item -> {
@@ -4,6 +4,8 @@ import com.arextest.schedule.model.PlanExecutionContext;
 import com.arextest.schedule.model.ReplayActionCaseItem;
 import com.arextest.schedule.model.ReplayActionItem;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Created by coryhh on 2023/10/17.
@@ -13,6 +15,10 @@ public interface ReplayNoiseIdentify {
   void noiseIdentify(List<ReplayActionCaseItem> allCasesOfContext,
       PlanExecutionContext<?> executionContext);
 
-  void rerunNoiseAnalysisRecovery(List<ReplayActionItem> actionItems);
+  /**
+   * @param failedContextIdentifiers the context identifiers of the failed cases, by action id
+   */
+  void rerunNoiseAnalysisRecovery(List<ReplayActionItem> actionItems,
+      Map<String, Set<String>> failedContextIdentifiers);
 
 }
@@ -147,20 +147,18 @@ public class ReplayNoiseIdentifyService implements ReplayNoiseIdentify {
   }
 
   @Override
-  public void rerunNoiseAnalysisRecovery(List<ReplayActionItem> actionItems) {
+  public void rerunNoiseAnalysisRecovery(List<ReplayActionItem> actionItems,
+      Map<String, Set<String>> failedContextIdentifiers) {
     if (CollectionUtils.isEmpty(actionItems)) {
       return;
     }
 
     for (ReplayActionItem actionItem : actionItems) {
       Map<String, Integer> noiseFinishedContexts = actionItem.getNoiseFinishedContexts();
-      List<ReplayActionCaseItem> caseItemList = actionItem.getCaseItemList();
-      if (CollectionUtils.isEmpty(caseItemList)) {
+      Set<String> failedCaseIdentifiers = failedContextIdentifiers.get(actionItem.getId());
+      if (CollectionUtils.isEmpty(failedCaseIdentifiers)) {
         continue;
       }
-      Set<String> failedCaseIdentifiers =
-          caseItemList.stream().map(ReplayActionCaseItem::getContextIdentifier)
-              .collect(Collectors.toSet());
       if (noiseFinishedContexts != null) {
         for (String failedCaseIdentifier : failedCaseIdentifiers) {
           noiseFinishedContexts.remove(PlanExecutionContext.buildContextName(failedCaseIdentifier));
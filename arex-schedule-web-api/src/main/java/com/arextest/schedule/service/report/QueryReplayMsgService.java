@@ -13,6 +13,7 @@ import com.arextest.schedule.comparer.CompareService;
 import com.arextest.schedule.comparer.CustomComparisonConfigurationHandler;
 import com.arextest.schedule.comparer.EncodingUtils;
 import com.arextest.schedule.dao.mongodb.ReplayCompareResultRepositoryImpl;
+import com.arextest.schedule.eventBus.CompareResultsSavedEvent;
 import com.arextest.schedule.model.ReplayCompareResult;
 import com.arextest.schedule.model.config.ComparisonInterfaceConfig;
 import com.arextest.schedule.model.config.ReplayComparisonConfig;
@@ -22,14 +23,20 @@ import com.arextest.schedule.model.report.QueryDiffMsgByIdResponseType;
 import com.arextest.schedule.model.report.QueryLogEntityRequestTye;
 import com.arextest.schedule.model.report.QueryLogEntityResponseType;
 import com.arextest.schedule.utils.ListUtils;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.tuple.MutablePair;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Slf4j
@@ -46,31 +53,31 @@ public class QueryReplayMsgService {
   private ReplayCompareResultConverter replayCompareResultConverter;
   @Resource
   private CompareService compareService;
+  @Resource
+  private ExecutorService diffDetailExecutorService;
+  @Resource
+  private EventBus compareResultEventBus;
+
+  /**
+   * compute the diff details of quick compared results in the background once they are written,
+   * so that opening a diff reads them instead of running a full compare in the request.
+   */
+  @Value("${arex.report.diffDetail.precompute.enable:true}")
+  private boolean diffDetailPrecompute;
+
+  @PostConstruct
+  public void init() {
+    compareResultEventBus.register(this);
+  }
 
   public QueryDiffMsgByIdResponseType queryDiffMsgById(String id) {
     QueryDiffMsgByIdResponseType response = new QueryDiffMsgByIdResponseType();
 
     ReplayCompareResult compareResultBo = replayCompareResultRepository.queryCompareResultsById(id);
 
-    ComparisonInterfaceConfig operationConfig = compareConfigService.loadInterfaceConfig(
-        compareResultBo.getPlanItemId());
-
-    ReplayComparisonConfig itemConfig = configHandler.pickConfig(operationConfig,
-        compareResultBo.getCategoryName(), compareResultBo.getOperationName());
-
-    CompareOptions compareOptions = configHandler.buildSkdOption(compareResultBo.getCategoryName(),
-        itemConfig);
-
-    // bo may contain only quick compare result, need to fill log entities into BO
-    if (DiffResultCode.COMPARED_WITH_DIFFERENCE == compareResultBo.getDiffResultCode()
-        && CollectionUtils.isEmpty(compareResultBo.getLogs())) {
-      String base = EncodingUtils.tryBase64Decode(compareResultBo.getBaseMsg());
-      String test = EncodingUtils.tryBase64Decode(compareResultBo.getTestMsg());
-      CompareResult compareResult = compareService.compare(base, test, compareOptions);
-      compareResultBo.setLogs(compareResult.getLogs());
-      // save the processed base and test msg into db
-      compareResultBo.setBaseMsg(compareResult.getProcessedBaseMsg());
-      compareResultBo.setTestMsg(compareResult.getProcessedTestMsg());
+    // not precomputed yet (or the background job dropped it), fill it in the request
+    if (needDiffDetail(compareResultBo)) {
+      fillDiffDetail(compareResultBo);
       replayCompareResultRepository.save(compareResultBo);
     }
 
@@ -96,6 +103,66 @@ public class QueryReplayMsgService {
     return response;
   }
 
+  /**
+   * Queue the saved results for background diff detail computation. Results that do not fit in
+   * the queue are computed on their first read. Only the id is queued, the job works on its own
+   * copy loaded from the db.
+   */
+  @Subscribe
+  public void precomputeDiffDetails(CompareResultsSavedEvent event) {
+    if (!diffDetailPrecompute || CollectionUtils.isEmpty(event.getCompareResultIds())) {
+      return;
+    }
+    for (String id : event.getCompareResultIds()) {
+      try {
+        diffDetailExecutorService.execute(() -> precomputeDiffDetail(id));
+      } catch (RejectedExecutionException e) {
+        LOGGER.info("diff detail precompute queue is full, left for read, id: {}", id);
+        return;
+      }
+    }
+  }
+
+  private void precomputeDiffDetail(String id) {
+    try {
+      ReplayCompareResult compareResult = replayCompareResultRepository.queryCompareResultsById(id);
+      // deleted by a rerun or already filled by a read in the meantime
+      if (compareResult == null || !needDiffDetail(compareResult)) {
+        return;
+      }
+      fillDiffDetail(compareResult);
+      replayCompareResultRepository.updateDiffDetail(compareResult);
+    } catch (Throwable throwable) {
+      LOGGER.error("precompute diff detail error: {}, id: {}", throwable.getMessage(), id,
+          throwable);
+    }
+  }
+
+  // bo may contain only quick compare result, need to fill log entities into BO
+  private static boolean needDiffDetail(ReplayCompareResult compareResultBo) {
+    return DiffResultCode.COMPARED_WITH_DIFFERENCE == compareResultBo.getDiffResultCode()
+        && CollectionUtils.isEmpty(compareResultBo.getLogs());
+  }
+
+  private void fillDiffDetail(ReplayCompareResult compareResultBo) {
+    ComparisonInterfaceConfig operationConfig = compareConfigService.loadInterfaceConfig(
+        compareResultBo.getPlanItemId());
+
+    ReplayComparisonConfig itemConfig = configHandler.pickConfig(operationConfig,
+        compareResultBo.getCategoryName(), compareResultBo.getOperationName());
+
+    CompareOptions compareOptions = configHandler.buildSkdOption(compareResultBo.getCategoryName(),
+        itemConfig);
+
+    String base = EncodingUtils.tryBase64Decode(compareResultBo.getBaseMsg());
+    String test = EncodingUtils.tryBase64Decode(compareResultBo.getTestMsg());
+    CompareResult compareResult = compareService.compare(base, test, compareOptions);
+    compareResultBo.setLogs(compareResult.getLogs());
+    // save the processed base and test msg into db
+    compareResultBo.setBaseMsg(compareResult.getProcessedBaseMsg());
+    compareResultBo.setTestMsg(compareResult.getProcessedTestMsg());
+  }
+
   private void fillCompareResultDetail(ReplayCompareResult compareResultBo,
       CompareResultDetail compareResultDetail) {
     List<LogEntity> logEntities = compareResultBo.getLogs();
@@ -1,20 +1,66 @@
 package com.arextest.schedule.utils;
 
 import java.util.Base64;
-import java.util.regex.Pattern;
 
 /**
  * @author wildeslam.
  * @create 2023/11/30 20:43
  */
 public class DecodeUtils {
-  private static final String PATTERN_STRING = "^([A-Za-z0-9+/]{4})*([A-Za-z0-9+/]{3}=|[A-Za-z0-9+/]{2}==)?$";
-  private static final Pattern BASE_64_PATTERN = Pattern.compile(PATTERN_STRING);
+
+  private static final char PADDING = '=';
+  private static final boolean[] BASE_64_ALPHABET = new boolean[128];
+
+  static {
+    for (char c = 'A'; c <= 'Z'; c++) {
+      BASE_64_ALPHABET[c] = true;
+    }
+    for (char c = 'a'; c <= 'z'; c++) {
+      BASE_64_ALPHABET[c] = true;
+    }
+    for (char c = '0'; c <= '9'; c++) {
+      BASE_64_ALPHABET[c] = true;
+    }
+    BASE_64_ALPHABET['+'] = true;
+    BASE_64_ALPHABET['/'] = true;
+  }
 
   public static Object decode(String requestMessage) {
-    if (BASE_64_PATTERN.matcher(requestMessage).matches()) {
+    if (isBase64(requestMessage)) {
       return Base64.getDecoder().decode(requestMessage);
     }
     return requestMessage;
   }
+
+  /**
+   * Single pass equivalent of
+   * {@code ^([A-Za-z0-9+/]{4})*([A-Za-z0-9+/]{3}=|[A-Za-z0-9+/]{2}==)?$}, stops at the first
+   * character out of the alphabet.
+   */
+  public static boolean isBase64(CharSequence value) {
+    int length = value.length();
+    if (length % 4 != 0) {
+      return false;
+    }
+    int end = length;
+    if (end > 0 && value.charAt(end - 1) == PADDING) {
+      end--;
+      if (value.charAt(end - 1) == PADDING) {
+        end--;
+      }
+    }
+    for (int i = 0; i < end; i++) {
+      if (!isBase64Char(value.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the char is in the base64 alphabet, padding excluded
+   */
+  public static boolean isBase64Char(char c) {
+    return c < BASE_64_ALPHABET.length && BASE_64_ALPHABET[c];
+  }
 }
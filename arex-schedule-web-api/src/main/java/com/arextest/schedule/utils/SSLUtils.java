@@ -16,6 +16,20 @@ public class SSLUtils {
 
   // this is dangerous, but this application should only be used in a trusted environment
   public static void disableSSLVerification() {
+    SSLContext sc = trustAllSSLContext();
+    if (sc == null) {
+      return;
+    }
+    HttpsURLConnection.setDefaultSSLSocketFactory(sc.getSocketFactory());
+
+    // trust all
+    HttpsURLConnection.setDefaultHostnameVerifier((hostname, session) -> true);
+  }
+
+  /**
+   * build a ssl context which trusts all certificates, return null if failed
+   */
+  public static SSLContext trustAllSSLContext() {
     try {
       TrustManager[] trustAllCerts = new TrustManager[]{
           new X509TrustManager() {
@@ -33,12 +47,10 @@ public class SSLUtils {
 
       SSLContext sc = SSLContext.getInstance("SSL");
       sc.init(null, trustAllCerts, new java.security.SecureRandom());
-      HttpsURLConnection.setDefaultSSLSocketFactory(sc.getSocketFactory());
-
-      // trust all
-      HttpsURLConnection.setDefaultHostnameVerifier((hostname, session) -> true);
+      return sc;
     } catch (Exception e) {
       LOGGER.error("Ignore SSL cert check failed", e);
     }
+    return null;
   }
 }
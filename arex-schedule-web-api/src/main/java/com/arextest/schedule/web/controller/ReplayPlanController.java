@@ -12,6 +12,7 @@ import com.arextest.schedule.model.plan.OperationCaseInfo;
 import com.arextest.schedule.model.plan.ReRunReplayPlanRequest;
 import com.arextest.schedule.progress.ProgressEvent;
 import com.arextest.schedule.progress.ProgressTracer;
+import com.arextest.schedule.service.PlanAdmissionService;
 import com.arextest.schedule.service.PlanProduceService;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -50,6 +51,8 @@ public class ReplayPlanController {
   @Resource
   private ProgressEvent progressEvent;
   @Resource
+  private PlanAdmissionService planAdmissionService;
+  @Resource
   private ObjectMapper objectMapper;
   private static final TypeReference<Map<String, String>> TAGS_TYPE = new TypeReference<Map<String, String>>() {
   };
@@ -140,6 +143,7 @@ public class ReplayPlanController {
     long updateTime = progressTracer.lastUpdateTime(planId);
     progressStatus.setPercent(percent);
     progressStatus.setLastUpdateTime(new Date(updateTime));
+    progressStatus.setQueuePosition(planAdmissionService.queuePosition(planId));
     return CommonResponse.successResponse("ok", progressStatus);
   }
 
@@ -175,5 +179,9 @@ public class ReplayPlanController {
     double percent;
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
     Date lastUpdateTime;
+    /**
+     * position of the plan waiting to run, 0 if it is not waiting
+     */
+    int queuePosition;
   }
 }
\ No newline at end of file
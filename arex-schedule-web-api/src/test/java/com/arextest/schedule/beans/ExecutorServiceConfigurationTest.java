@@ -0,0 +1,62 @@
+package com.arextest.schedule.beans;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ExecutorServiceConfigurationTest {
+
+  private static final String IO_DISPATCHER_NAME = "I/O dispatcher 1";
+
+  @Test
+  void testSendCompletionNeverRunsOnIoDispatcher() throws InterruptedException {
+    ExecutorService completionExecutor =
+        new ExecutorServiceConfiguration().sendCompletionExecutorService();
+    int poolSize = 4 * Runtime.getRuntime().availableProcessors();
+    int completionCount = 8 * poolSize;
+    try {
+      // saturate every worker, further completions can only queue or run on the caller
+      CountDownLatch blocker = new CountDownLatch(1);
+      for (int i = 0; i < poolSize; i++) {
+        completionExecutor.execute(() -> {
+          try {
+            blocker.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+      }
+
+      List<String> completionThreads = new CopyOnWriteArrayList<>();
+      CountDownLatch completed = new CountDownLatch(completionCount);
+      Thread ioDispatcher = new Thread(() -> {
+        for (int i = 0; i < completionCount; i++) {
+          CompletableFuture<Boolean> sent = new CompletableFuture<>();
+          sent.whenCompleteAsync((result, error) -> {
+            completionThreads.add(Thread.currentThread().getName());
+            completed.countDown();
+          }, completionExecutor);
+          sent.complete(true);
+        }
+      }, IO_DISPATCHER_NAME);
+      ioDispatcher.start();
+      ioDispatcher.join(5000);
+      assertFalse(ioDispatcher.isAlive());
+
+      blocker.countDown();
+      assertTrue(completed.await(5, TimeUnit.SECONDS));
+      assertEquals(completionCount, completionThreads.size());
+      assertFalse(completionThreads.contains(IO_DISPATCHER_NAME));
+    } finally {
+      completionExecutor.shutdownNow();
+    }
+  }
+}
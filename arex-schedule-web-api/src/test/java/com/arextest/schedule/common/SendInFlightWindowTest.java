@@ -0,0 +1,52 @@
+package com.arextest.schedule.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class SendInFlightWindowTest {
+
+  @Test
+  void testAwaitEmpty() throws InterruptedException {
+    SendInFlightWindow window = new SendInFlightWindow();
+    assertTrue(window.awaitEmpty(10, TimeUnit.MILLISECONDS));
+
+    window.enter();
+    window.enter();
+    assertEquals(2, window.inFlight());
+    assertFalse(window.awaitEmpty(10, TimeUnit.MILLISECONDS));
+
+    window.exit();
+    Thread thread = new Thread(window::exit);
+    thread.start();
+    assertTrue(window.awaitEmpty(1, TimeUnit.SECONDS));
+    assertEquals(0, window.inFlight());
+  }
+
+  @Test
+  void testEnterWaitsWhenFull() throws InterruptedException {
+    SendInFlightWindow window = new SendInFlightWindow();
+    window.setMaxInFlight(1);
+    window.enter();
+
+    Thread second = new Thread(() -> {
+      try {
+        window.enter();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    second.start();
+    second.join(100);
+    assertTrue(second.isAlive());
+    assertEquals(1, window.inFlight());
+
+    window.exit();
+    second.join(1000);
+    assertFalse(second.isAlive());
+    assertEquals(1, window.inFlight());
+  }
+}
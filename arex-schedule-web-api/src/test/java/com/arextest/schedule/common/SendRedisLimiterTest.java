@@ -0,0 +1,100 @@
+package com.arextest.schedule.common;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.arextest.common.cache.CacheProvider;
+import com.arextest.schedule.model.ReplayPlan;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SendRedisLimiterTest {
+
+  private CacheProvider redisCacheProvider;
+  private ReplayPlan replayPlan;
+
+  @BeforeEach
+  public void setUp() {
+    redisCacheProvider = mock(CacheProvider.class);
+    replayPlan = new ReplayPlan();
+    replayPlan.setId("plan");
+    replayPlan.setCaseTotalCount(1000);
+  }
+
+  @Test
+  void testFailBreakReadsDecimalCounters() {
+    when(redisCacheProvider.get(key("continuousFailCounter"))).thenReturn(bytes("41"));
+    SendRedisLimiter limiter = new SendRedisLimiter(replayPlan, redisCacheProvider);
+    assertTrue(limiter.failBreak());
+
+    when(redisCacheProvider.get(key("continuousFailCounter"))).thenReturn(bytes("3"));
+    when(redisCacheProvider.get(key("failCounter"))).thenReturn(bytes("99"));
+    assertFalse(limiter.failBreak());
+  }
+
+  @Test
+  void testAcquireLeasesBatch() {
+    // 8 permits per second are leased 2 at a time
+    when(redisCacheProvider.incrValueBy(any(), anyLong())).thenReturn(2L);
+    SendRedisLimiter limiter = new SendRedisLimiter(replayPlan, redisCacheProvider, 8);
+    limiter.acquire();
+    verify(redisCacheProvider).putIfAbsent(any(), eq(2L), any());
+    verify(redisCacheProvider).incrValueBy(any(), eq(2L));
+  }
+
+  @Test
+  void testReleaseFlushesInBatches() {
+    SendRedisLimiter limiter = new SendRedisLimiter(replayPlan, redisCacheProvider, 8);
+    limiter.release(false);
+    verify(redisCacheProvider, never()).incrValueBy(any(), anyLong());
+
+    when(redisCacheProvider.incrValueBy(key("continuousFailCounter"), 2L)).thenReturn(2L);
+    limiter.release(false);
+    verify(redisCacheProvider).incrValueBy(key("continuousFailCounter"), 2L);
+    verify(redisCacheProvider).incrValueBy(key("failCounter"), 2L);
+    verify(redisCacheProvider, never()).incrValue(any());
+
+    limiter.release(false);
+    limiter.release(true);
+    verify(redisCacheProvider, times(1)).put(eq(key("continuousFailCounter")), anyLong(), any());
+  }
+
+  @Test
+  void testFlushWritesPendingResults() {
+    SendRedisLimiter limiter = new SendRedisLimiter(replayPlan, redisCacheProvider, 8);
+    limiter.release(false);
+    limiter.flush();
+    verify(redisCacheProvider).incrValueBy(key("continuousFailCounter"), 1L);
+    verify(redisCacheProvider).incrValueBy(key("failCounter"), 1L);
+  }
+
+  @Test
+  void testFailBreakUsesUpdatedPlan() {
+    when(redisCacheProvider.get(key("failCounter"))).thenReturn(bytes("20"));
+    SendRedisLimiter limiter = new SendRedisLimiter(replayPlan, redisCacheProvider, 8);
+    assertFalse(limiter.failBreak());
+
+    ReplayPlan reRunPlan = new ReplayPlan();
+    reRunPlan.setId("plan");
+    reRunPlan.setCaseTotalCount(100);
+    limiter.setReplayPlan(reRunPlan);
+    assertTrue(limiter.failBreak());
+  }
+
+  private static byte[] key(String keyword) {
+    return bytes("replayPlan_plan_" + keyword);
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -81,4 +81,46 @@ public class SendSemaphoreLimiterTest {
     assertEquals(SendSemaphoreLimiter.QPS_STEP_RATIO[1] * SendSemaphoreLimiter.DEFAULT_MAX_RATE,
         test.getPermits());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void adaptiveIncreaseUntilMax() {
+    SendSemaphoreLimiter test = new SendSemaphoreLimiter(null, 1, true);
+    int initial = test.getPermits();
+    for (int i = 0; i < AimdRateController.WINDOW_SIZE; i++) {
+      test.release(true, 10);
+    }
+    assertEquals(initial + 1, test.getPermits());
+
+    for (int i = 0; i < AimdRateController.WINDOW_SIZE * SendSemaphoreLimiter.DEFAULT_MAX_RATE;
+        i++) {
+      test.release(true, 10);
+    }
+    assertEquals(SendSemaphoreLimiter.DEFAULT_MAX_RATE, test.getPermits());
+  }
+
+  @Test
+  public void adaptiveDecreaseOnFailure() {
+    SendSemaphoreLimiter test = new SendSemaphoreLimiter(null, 1, true);
+    int initial = test.getPermits();
+    for (int i = 0; i < AimdRateController.WINDOW_SIZE; i++) {
+      test.release(i > 1, 10);
+    }
+    assertEquals(initial / 2, test.getPermits());
+  }
+
+  @Test
+  public void adaptiveDecreaseOnLatency() {
+    SendSemaphoreLimiter test = new SendSemaphoreLimiter(null, 1, true);
+    int initial = test.getPermits();
+    for (int i = 0; i < AimdRateController.WINDOW_SIZE; i++) {
+      test.release(true, 10);
+    }
+    for (int i = 0; i < AimdRateController.WINDOW_SIZE; i++) {
+      test.release(true, 100);
+    }
+    assertEquals((initial + 1) / 2, test.getPermits());
+
+    test.reset();
+    assertEquals(initial, test.getPermits());
+  }
+}
@@ -0,0 +1,85 @@
+package com.arextest.schedule.comparer.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.arextest.diff.model.CompareOptions;
+import com.arextest.diff.model.CompareResult;
+import com.arextest.diff.model.enumeration.DiffResultCode;
+import com.arextest.model.mock.MockCategoryType;
+import com.arextest.schedule.comparer.CompareService;
+import com.arextest.schedule.comparer.CustomComparisonConfigurationHandler;
+import com.arextest.schedule.model.CompareModeType;
+import com.arextest.schedule.model.config.ReplayComparisonConfig;
+import com.arextest.web.model.contract.contracts.compare.TransformDetail;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class DefaultReplayResultComparerTest {
+
+  private static final String PAYLOAD = "{\"result\":\"success\"}";
+
+  private CompareService compareService;
+  private DefaultReplayResultComparer replayResultComparer;
+
+  @BeforeEach
+  public void setUp() {
+    compareService = mock(CompareService.class);
+    CustomComparisonConfigurationHandler configHandler =
+        mock(CustomComparisonConfigurationHandler.class);
+    when(configHandler.buildSkdOption(anyString(), any())).thenReturn(new CompareOptions());
+    replayResultComparer = DefaultReplayResultComparer.builder()
+        .compareService(compareService)
+        .configHandler(configHandler)
+        .build();
+  }
+
+  @Test
+  void testIdenticalPayloadSkipsSdk() {
+    CompareResult result = compareProcess(PAYLOAD, PAYLOAD, new ReplayComparisonConfig());
+
+    assertEquals(DiffResultCode.COMPARED_WITHOUT_DIFFERENCE, result.getCode());
+    assertEquals(PAYLOAD, result.getProcessedBaseMsg());
+    assertEquals(PAYLOAD, result.getProcessedTestMsg());
+    assertNotNull(result.getMsgInfo());
+    assertEquals(0, result.getMsgInfo().getMsgMiss());
+    verify(compareService, never()).compare(anyString(), anyString(), any(CompareOptions.class));
+  }
+
+  @Test
+  void testIdenticalPayloadWithTransformUsesSdk() {
+    ReplayComparisonConfig compareConfig = new ReplayComparisonConfig();
+    compareConfig.setTransformDetails(Collections.singletonList(mock(TransformDetail.class)));
+    CompareResult sdkResult = new CompareResult();
+    when(compareService.compare(anyString(), anyString(), any(CompareOptions.class)))
+        .thenReturn(sdkResult);
+
+    // the transformed messages can only come from the sdk
+    assertSame(sdkResult, compareProcess(PAYLOAD, PAYLOAD, compareConfig));
+  }
+
+  @Test
+  void testEmptyPayloadUsesSdk() {
+    CompareResult sdkResult = new CompareResult();
+    when(compareService.compare(anyString(), anyString(), any(CompareOptions.class)))
+        .thenReturn(sdkResult);
+
+    assertSame(sdkResult, compareProcess("", "", new ReplayComparisonConfig()));
+  }
+
+  private CompareResult compareProcess(String record, String replay,
+      ReplayComparisonConfig compareConfig) {
+    return ReflectionTestUtils.invokeMethod(replayResultComparer, "compareProcess",
+        MockCategoryType.SERVLET.getName(), record, replay, compareConfig,
+        CompareModeType.FULL.getValue());
+  }
+}
@@ -0,0 +1,45 @@
+package com.arextest.schedule.sender.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.arextest.schedule.sender.ReplaySendResult;
+import java.util.concurrent.CompletableFuture;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+class AsyncHttpReplaySenderTest {
+
+  private final AsyncHttpReplaySender sender = new AsyncHttpReplaySender();
+
+  @Test
+  void testErrorStatusFails() throws Exception {
+    BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 500,
+        "Internal Server Error");
+    response.setEntity(new StringEntity("error"));
+    response.addHeader("arex-replay-id", "replayId");
+
+    ReplaySendResult result = complete(response);
+    assertFalse(result.success());
+    assertEquals("500 Internal Server Error", result.getRemark());
+  }
+
+  @Test
+  void testOkStatusSucceeds() throws Exception {
+    BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    response.setEntity(new StringEntity("ok"));
+
+    assertTrue(complete(response).success());
+  }
+
+  private ReplaySendResult complete(BasicHttpResponse response) throws Exception {
+    CompletableFuture<ReplaySendResult> future = new CompletableFuture<>();
+    sender.new ResultCallback(future, "POST", "http://localhost/test", new HttpHeaders(), false)
+        .completed(response);
+    return future.get();
+  }
+}
@@ -0,0 +1,153 @@
+package com.arextest.schedule.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import com.arextest.common.cache.CacheProvider;
+import com.arextest.schedule.model.ReplayPlan;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PlanAdmissionServiceTest {
+
+  @InjectMocks
+  private PlanAdmissionService planAdmissionService;
+  @Mock
+  private ExecutorService preloadExecutorService;
+  @Mock
+  private CacheProvider redisCacheProvider;
+
+  private final List<Runnable> started = new ArrayList<>();
+  private final List<String> startedPlans = new ArrayList<>();
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(planAdmissionService, "enable", true);
+    ReflectionTestUtils.setField(planAdmissionService, "maxRunningPlans", 2);
+    ReflectionTestUtils.setField(planAdmissionService, "maxRunningPlansPerApp", 1);
+    doAnswer(invocation -> started.add(invocation.getArgument(0)))
+        .when(preloadExecutorService).execute(any(Runnable.class));
+  }
+
+  @Test
+  void testAppQuota() {
+    submit("plan1", "appA");
+    submit("plan2", "appA");
+    submit("plan3", "appB");
+
+    assertEquals(2, started.size());
+    assertEquals(1, planAdmissionService.queuePosition("plan2"));
+    assertEquals(0, planAdmissionService.queuePosition("plan3"));
+
+    started.get(0).run();
+    assertEquals(3, started.size());
+    assertEquals(0, planAdmissionService.queuePosition("plan2"));
+  }
+
+  @Test
+  void testFairAdmission() {
+    ReflectionTestUtils.setField(planAdmissionService, "maxRunningPlans", 1);
+    ReflectionTestUtils.setField(planAdmissionService, "maxRunningPlansPerApp", 2);
+    submit("plan1", "appA");
+    submit("plan2", "appA");
+    submit("plan3", "appB");
+
+    // appA already runs a plan, the plan of appB goes first although queued later
+    assertEquals(1, planAdmissionService.queuePosition("plan3"));
+    assertEquals(2, planAdmissionService.queuePosition("plan2"));
+    started.get(0).run();
+    started.get(1).run();
+    assertEquals("plan3", startedPlans.get(1));
+  }
+
+  @Test
+  void testWeightedAdmission() {
+    ReflectionTestUtils.setField(planAdmissionService, "maxRunningPlans", 1);
+    ReflectionTestUtils.setField(planAdmissionService, "maxRunningPlansPerApp", 3);
+    ReflectionTestUtils.setField(planAdmissionService, "appWeights", "appA:2");
+    ReflectionTestUtils.invokeMethod(planAdmissionService, "init");
+    submit("plan1", "appA");
+    submit("plan2", "appA");
+    submit("plan3", "appB");
+    submit("plan4", "appA");
+    submit("plan5", "appB");
+
+    // appA weighs 2, it gets two plans for every plan of appB
+    assertEquals(1, planAdmissionService.queuePosition("plan3"));
+    assertEquals(2, planAdmissionService.queuePosition("plan2"));
+    assertEquals(3, planAdmissionService.queuePosition("plan4"));
+    assertEquals(4, planAdmissionService.queuePosition("plan5"));
+    for (int i = 0; i < 4; i++) {
+      started.get(i).run();
+    }
+    assertEquals(Arrays.asList("plan1", "plan3", "plan2", "plan4"), startedPlans);
+  }
+
+  @Test
+  void testCancelQueuedPlan() {
+    submit("plan1", "appA");
+    submit("plan2", "appA");
+    submit("plan3", "appA");
+
+    assertTrue(planAdmissionService.cancel("plan2"));
+    assertFalse(planAdmissionService.cancel("plan2"));
+    assertEquals(0, planAdmissionService.queuePosition("plan2"));
+    started.get(0).run();
+    started.get(1).run();
+    assertEquals(Arrays.asList("plan1", "plan3"), startedPlans);
+  }
+
+  @Test
+  void testSkipStoppedPlan() {
+    when(redisCacheProvider.get(PlanProduceService.buildStopPlanRedisKey("plan2")))
+        .thenReturn("plan2".getBytes(StandardCharsets.UTF_8));
+    submit("plan1", "appA");
+    submit("plan2", "appA");
+    submit("plan3", "appA");
+
+    // plan2 was stopped on another instance while it was waiting, plan3 takes its slot
+    started.get(0).run();
+    assertEquals(2, started.size());
+    started.get(1).run();
+    assertEquals(Arrays.asList("plan1", "plan3"), startedPlans);
+  }
+
+  @Test
+  void testUnboundedAppQuota() {
+    ReflectionTestUtils.setField(planAdmissionService, "maxRunningPlansPerApp", 0);
+    submit("plan1", "appA");
+    submit("plan2", "appA");
+    submit("plan3", "appA");
+    assertEquals(2, started.size());
+    assertEquals(1, planAdmissionService.queuePosition("plan3"));
+  }
+
+  @Test
+  void testDisabled() {
+    ReflectionTestUtils.setField(planAdmissionService, "enable", false);
+    submit("plan1", "appA");
+    submit("plan2", "appA");
+    assertEquals(2, started.size());
+  }
+
+  private void submit(String planId, String appId) {
+    ReplayPlan replayPlan = new ReplayPlan();
+    replayPlan.setId(planId);
+    replayPlan.setAppId(appId);
+    planAdmissionService.submit(replayPlan, () -> startedPlans.add(planId));
+  }
+}
@@ -1,7 +1,11 @@
 package com.arextest.schedule.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.arextest.schedule.dao.mongodb.ReplayActionCaseItemRepository;
@@ -14,11 +18,14 @@ import com.arextest.schedule.planexecution.PlanExecutionContextProvider;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
 
 class PlanConsumePrepareServiceTest {
   @InjectMocks
@@ -80,6 +87,64 @@ class PlanConsumePrepareServiceTest {
         CaseProvider.ROLLING);
     assertEquals(10, result);
   }
+
+  @Test
+  void testPrefetchLoadsNextPage() {
+    ExecutorService caseLoadExecutorService = Executors.newSingleThreadExecutor();
+    try {
+      enablePrefetch(caseLoadExecutorService);
+      when(caseRemoteLoadService.pagingLoad(
+          any(Long.class), any(Long.class), any(ReplayActionItem.class),
+          any(Integer.class), any(String.class), any(String.class)))
+          .thenReturn(fullPage())
+          .thenReturn(fullPage());
+
+      int result = planConsumePrepareService.loadCasesByProvider(replayActionItem,
+          CaseProvider.ROLLING);
+      assertEquals(20, result);
+      verify(replayActionCaseItemRepository, times(2)).save(anyList());
+    } finally {
+      caseLoadExecutorService.shutdownNow();
+    }
+  }
+
+  @Test
+  void testPrefetchFailurePropagates() {
+    ExecutorService caseLoadExecutorService = Executors.newSingleThreadExecutor();
+    try {
+      enablePrefetch(caseLoadExecutorService);
+      when(caseRemoteLoadService.pagingLoad(
+          any(Long.class), any(Long.class), any(ReplayActionItem.class),
+          any(Integer.class), any(String.class), any(String.class)))
+          .thenReturn(fullPage())
+          .thenThrow(new IllegalStateException("interrupted"));
+
+      // a failed page must not end the loading as if it were the last one
+      assertThrows(IllegalStateException.class,
+          () -> planConsumePrepareService.loadCasesByProvider(replayActionItem,
+              CaseProvider.ROLLING));
+      verify(replayActionCaseItemRepository, times(1)).save(anyList());
+    } finally {
+      caseLoadExecutorService.shutdownNow();
+    }
+  }
+
+  private void enablePrefetch(ExecutorService caseLoadExecutorService) {
+    ReflectionTestUtils.setField(planConsumePrepareService, "prefetchEnable", true);
+    ReflectionTestUtils.setField(planConsumePrepareService, "caseLoadExecutorService",
+        caseLoadExecutorService);
+    when(replayPlan.getCaseCountLimit()).thenReturn(20);
+  }
+
+  private List<ReplayActionCaseItem> fullPage() {
+    List<ReplayActionCaseItem> page = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      ReplayActionCaseItem replayActionCaseItem = new ReplayActionCaseItem();
+      replayActionCaseItem.setRecordTime(1710409450000L);
+      page.add(replayActionCaseItem);
+    }
+    return page;
+  }
 //
 //  @Test
 //  public void testGetAllOperationTypeSize() {
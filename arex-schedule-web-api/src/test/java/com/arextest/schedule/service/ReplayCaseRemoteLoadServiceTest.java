@@ -0,0 +1,66 @@
+package com.arextest.schedule.service;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.arextest.schedule.client.HttpWepServiceApiClient;
+import com.arextest.schedule.model.CaseProvider;
+import com.arextest.schedule.model.ReplayActionItem;
+import com.arextest.schedule.model.ReplayPlan;
+import java.util.Date;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ReplayCaseRemoteLoadServiceTest {
+
+  @InjectMocks
+  private ReplayCaseRemoteLoadService replayCaseRemoteLoadService;
+
+  @Mock
+  private HttpWepServiceApiClient wepApiClientService;
+  @Mock
+  private MetricService metricService;
+  @Mock
+  private ReplayActionItem replayActionItem;
+  @Mock
+  private ReplayPlan replayPlan;
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(replayCaseRemoteLoadService, "replayCaseUrl",
+        "http://storage:8093/api/storage/replay/query/replayCase");
+    ReflectionTestUtils.setField(replayCaseRemoteLoadService, "storageHostParallelism", 1);
+
+    when(replayPlan.getCaseSourceFrom()).thenReturn(new Date(1710405850000L));
+    when(replayPlan.getCaseSourceTo()).thenReturn(new Date(1710416650396L));
+    when(replayActionItem.getParent()).thenReturn(replayPlan);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    // clear the interrupt flag left by the test
+    Thread.interrupted();
+  }
+
+  @Test
+  void testInterruptedPagingLoadIsNotLastPage() {
+    Thread.currentThread().interrupt();
+
+    assertThrows(IllegalStateException.class,
+        () -> replayCaseRemoteLoadService.pagingLoad(1710405850000L, 1710416650396L,
+            replayActionItem, 10, CaseProvider.ROLLING.getName(), "SOAProvider"));
+    assertTrue(Thread.currentThread().isInterrupted());
+    verify(wepApiClientService, never()).jsonPost(anyString(), any(), any());
+  }
+}
@@ -2,6 +2,7 @@ package com.arextest.schedule.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import com.arextest.schedule.comparer.ComparisonWriter;
 import com.arextest.schedule.dao.mongodb.ReplayActionCaseItemRepository;
@@ -9,6 +10,7 @@ import com.arextest.schedule.model.CaseSendStatusType;
 import com.arextest.schedule.model.ReplayActionCaseItem;
 import com.arextest.schedule.model.ReplayActionItem;
 import com.arextest.schedule.progress.ProgressTracer;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import org.junit.jupiter.api.BeforeEach;
@@ -34,6 +36,8 @@ class ReplayCaseTransmitServiceImplTest {
   private ComparisonWriter comparisonWriter;
   @Mock
   private ProgressTracer progressTracer;
+  @Mock
+  private ReplayComparePipeline replayComparePipeline;
   @BeforeEach
   public void setUp() throws Exception {
     MockitoAnnotations.openMocks(this);
@@ -71,6 +75,37 @@ class ReplayCaseTransmitServiceImplTest {
     assertEquals(CaseSendStatusType.SUCCESS.getValue(), caseItem.getSendStatus());
   }
 
+  @Test
+  void testUpdateSendResult_WhenBatchEnabled_RetriesFailedCase() {
+    ReplayActionCaseItem caseItem = new ReplayActionCaseItem();
+    caseItem.setId("test");
+    ReplayActionItem parent = new ReplayActionItem();
+    parent.setAppId("appId");
+    caseItem.setParent(parent);
+    when(replayActionCaseItemRepository.isSendResultBatchEnabled()).thenReturn(true);
+    when(replayActionCaseItemRepository.updateSendResultAsync(caseItem))
+        .thenReturn(CompletableFuture.completedFuture(false));
+    when(defaultConfigProviderImpl.getCompareDelaySeconds(parent.getAppId())).thenReturn(60);
+    replayCaseTransmitServiceImpl.updateSendResult(caseItem, CaseSendStatusType.SUCCESS);
+    verify(replayActionCaseItemRepository).updateSendResultAsync(caseItem);
+    verify(replayActionCaseItemRepository).updateSendResult(caseItem);
+  }
+
+  @Test
+  void testUpdateSendResult_WhenPipelineAccepts_SkipsDelayedCompare() {
+    ReplayActionCaseItem caseItem = new ReplayActionCaseItem();
+    caseItem.setId("test");
+    ReplayActionItem parent = new ReplayActionItem();
+    parent.setAppId("appId");
+    caseItem.setParent(parent);
+    when(defaultConfigProviderImpl.getCompareDelaySeconds(parent.getAppId())).thenReturn(60);
+    when(replayComparePipeline.offer(caseItem, 60)).thenReturn(true);
+    replayCaseTransmitServiceImpl.updateSendResult(caseItem, CaseSendStatusType.SUCCESS);
+    verify(replayActionCaseItemRepository).updateSendResult(caseItem);
+    verify(replayComparePipeline).offer(caseItem, 60);
+    verifyNoInteractions(compareScheduleExecutorService, compareExecutorService);
+  }
+
   @Test
   void testUpdateSendResult_WhenSendStatusTypeIsNotSuccess_CallsDoSendFailedAsFinish() {
     ReplayActionCaseItem caseItem = new ReplayActionCaseItem();
@@ -0,0 +1,195 @@
+package com.arextest.schedule.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.arextest.schedule.common.SendSemaphoreLimiter;
+import com.arextest.schedule.comparer.ReplayResultComparer;
+import com.arextest.schedule.model.ExecutionStatus;
+import com.arextest.schedule.model.ReplayActionCaseItem;
+import com.arextest.schedule.model.ReplayActionItem;
+import com.arextest.schedule.model.ReplayPlan;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ReplayComparePipelineTest {
+
+  private static final String PLAN_ID = "plan";
+  private static final String OTHER_PLAN_ID = "other-plan";
+
+  @InjectMocks
+  private ReplayComparePipeline replayComparePipeline;
+  @Mock
+  private ReplayResultComparer replayResultComparer;
+  @Mock
+  private ReplayCompareService replayCompareService;
+  @Mock
+  private ExecutorService compareExecutorService;
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(replayComparePipeline, "enable", true);
+    ReflectionTestUtils.setField(replayComparePipeline, "capacity", 1);
+    ReflectionTestUtils.setField(replayComparePipeline, "offerTimeoutMillis", 10L);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    ReflectionTestUtils.invokeMethod(replayComparePipeline, "stop");
+  }
+
+  @Test
+  void testOfferWhenDisabled() {
+    ReflectionTestUtils.setField(replayComparePipeline, "enable", false);
+    ReflectionTestUtils.invokeMethod(replayComparePipeline, "start");
+    assertFalse(replayComparePipeline.offer(caseOf(PLAN_ID), 0));
+    assertTrue(replayComparePipeline.awaitCapacity(PLAN_ID));
+  }
+
+  @Test
+  void testOfferDispatchesToCompareExecutor() {
+    ReflectionTestUtils.invokeMethod(replayComparePipeline, "start");
+    assertTrue(replayComparePipeline.offer(caseOf(PLAN_ID), 0));
+    verify(compareExecutorService, timeout(1000)).execute(any(Runnable.class));
+  }
+
+  @Test
+  void testOfferWaitsForCompareDelay() throws InterruptedException {
+    ReflectionTestUtils.invokeMethod(replayComparePipeline, "start");
+    assertTrue(replayComparePipeline.offer(caseOf(PLAN_ID), 60));
+    Thread.sleep(100);
+    verify(compareExecutorService, never()).execute(any(Runnable.class));
+    assertEquals(1, replayComparePipeline.size());
+  }
+
+  @Test
+  void testFullPipelineRejects() {
+    // hold the dispatcher inside the compare executor so the queue stays full
+    AtomicReference<Thread> dispatcher = new AtomicReference<>();
+    doAnswer(invocation -> {
+      dispatcher.set(Thread.currentThread());
+      Thread.sleep(Long.MAX_VALUE);
+      return null;
+    }).when(compareExecutorService).execute(any(Runnable.class));
+    ReflectionTestUtils.invokeMethod(replayComparePipeline, "start");
+
+    assertTrue(replayComparePipeline.offer(caseOf(PLAN_ID), 0));
+    verify(compareExecutorService, timeout(1000)).execute(any(Runnable.class));
+    assertTrue(replayComparePipeline.offer(caseOf(PLAN_ID), 0));
+    assertEquals(1, replayComparePipeline.size());
+    // the offer never waits, the send loop does
+    assertFalse(replayComparePipeline.offer(caseOf(PLAN_ID), 0));
+    assertFalse(replayComparePipeline.awaitCapacity(PLAN_ID));
+  }
+
+  @Test
+  void testFullPlanDoesNotHoldOtherPlans() {
+    ReflectionTestUtils.setField(replayComparePipeline, "offerTimeoutMillis", 60_000L);
+    ReflectionTestUtils.invokeMethod(replayComparePipeline, "start");
+
+    assertTrue(replayComparePipeline.offer(caseOf(PLAN_ID), 60));
+    assertFalse(replayComparePipeline.offer(caseOf(PLAN_ID), 60));
+
+    long start = System.currentTimeMillis();
+    assertTrue(replayComparePipeline.awaitCapacity(OTHER_PLAN_ID));
+    assertTrue(replayComparePipeline.offer(caseOf(OTHER_PLAN_ID), 60));
+    assertTrue(System.currentTimeMillis() - start < 1000);
+    assertEquals(2, replayComparePipeline.size());
+  }
+
+  @Test
+  void testFullPlanWaitsOnlyOnce() {
+    ReflectionTestUtils.setField(replayComparePipeline, "offerTimeoutMillis", 200L);
+    ReflectionTestUtils.invokeMethod(replayComparePipeline, "start");
+    assertTrue(replayComparePipeline.offer(caseOf(PLAN_ID), 60));
+
+    long start = System.currentTimeMillis();
+    assertFalse(replayComparePipeline.awaitCapacity(PLAN_ID));
+    assertTrue(System.currentTimeMillis() - start >= 200);
+
+    // the following cases fall back to the delayed compare without waiting
+    start = System.currentTimeMillis();
+    for (int i = 0; i < 10; i++) {
+      assertFalse(replayComparePipeline.awaitCapacity(PLAN_ID));
+    }
+    assertTrue(System.currentTimeMillis() - start < 200);
+  }
+
+  @Test
+  void testReadyCasesOfOneActionAreBatched() throws InterruptedException {
+    ReflectionTestUtils.setField(replayComparePipeline, "capacity", 10);
+    ReflectionTestUtils.setField(replayComparePipeline, "batchSize", 10);
+    CountDownLatch firstDispatched = new CountDownLatch(1);
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+    List<Runnable> executed = new CopyOnWriteArrayList<>();
+    doAnswer(invocation -> {
+      executed.add(invocation.getArgument(0));
+      firstDispatched.countDown();
+      releaseFirst.await();
+      return null;
+    }).when(compareExecutorService).execute(any(Runnable.class));
+    ReflectionTestUtils.invokeMethod(replayComparePipeline, "start");
+
+    // hold the dispatcher while the cases of the action become ready
+    assertTrue(replayComparePipeline.offer(caseOf(OTHER_PLAN_ID), 0));
+    assertTrue(firstDispatched.await(1, TimeUnit.SECONDS));
+    ReplayActionCaseItem first = caseOf(PLAN_ID);
+    ReplayActionCaseItem second = caseOf(PLAN_ID);
+    first.getParent().setId("action");
+    second.setParent(first.getParent());
+    assertTrue(replayComparePipeline.offer(first, 0));
+    assertTrue(replayComparePipeline.offer(second, 0));
+    releaseFirst.countDown();
+
+    verify(compareExecutorService, timeout(1000).times(2)).execute(any(Runnable.class));
+    assertTrue(executed.get(1) instanceof AsyncCompareCaseBatchTaskRunnable);
+  }
+
+  @Test
+  void testPlanCapacityCoversSendRateOverCompareDelay() {
+    ReflectionTestUtils.setField(replayComparePipeline, "capacity", 1000);
+    ReflectionTestUtils.invokeMethod(replayComparePipeline, "start");
+    ReplayPlan replayPlan = new ReplayPlan();
+    replayPlan.setPlanStatus(ExecutionStatus.buildNormal(new SendSemaphoreLimiter(5, 1)));
+
+    // 5 per second over a compare delay of 10 seconds, twice
+    for (int i = 0; i < 100; i++) {
+      assertTrue(replayComparePipeline.offer(caseOf(PLAN_ID, replayPlan), 10));
+    }
+    assertFalse(replayComparePipeline.offer(caseOf(PLAN_ID, replayPlan), 10));
+    // without a known send rate a plan gets the configured capacity
+    assertTrue(replayComparePipeline.offer(caseOf(OTHER_PLAN_ID), 10));
+  }
+
+  private static ReplayActionCaseItem caseOf(String planId, ReplayPlan replayPlan) {
+    ReplayActionCaseItem caseItem = caseOf(planId);
+    caseItem.getParent().setParent(replayPlan);
+    return caseItem;
+  }
+
+  private static ReplayActionCaseItem caseOf(String planId) {
+    ReplayActionItem parent = new ReplayActionItem();
+    parent.setPlanId(planId);
+    ReplayActionCaseItem caseItem = new ReplayActionCaseItem();
+    caseItem.setParent(parent);
+    return caseItem;
+  }
+}
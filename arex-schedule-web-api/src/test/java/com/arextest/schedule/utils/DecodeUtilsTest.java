@@ -0,0 +1,35 @@
+package com.arextest.schedule.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class DecodeUtilsTest {
+
+  private static final Pattern BASE_64_PATTERN = Pattern.compile(
+      "^([A-Za-z0-9+/]{4})*([A-Za-z0-9+/]{3}=|[A-Za-z0-9+/]{2}==)?$");
+
+  @Test
+  void isBase64MatchesPattern() {
+    String[] values = {"", "QQ==", "QUI=", "QUJD", "QUJDRA==", "Q===", "====", "QUJ", "QU=D",
+        "{\"a\":1}", "QUJD\n", "QUJD RA==", "Zm9v/+==", "Zm9vYmFy", "5L2g5aW9", "中文中文"};
+    for (String value : values) {
+      assertEquals(BASE_64_PATTERN.matcher(value).matches(), DecodeUtils.isBase64(value), value);
+    }
+  }
+
+  @Test
+  void decode() {
+    byte[] body = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+    String encoded = Base64.getEncoder().encodeToString(body);
+    assertArrayEquals(body, (byte[]) DecodeUtils.decode(encoded));
+
+    String plain = "{\"a\":1}";
+    assertSame(plain, DecodeUtils.decode(plain));
+  }
+}